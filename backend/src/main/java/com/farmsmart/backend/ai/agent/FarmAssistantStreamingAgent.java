@@ -0,0 +1,16 @@
+package com.farmsmart.backend.ai.agent;
+
+import dev.langchain4j.service.MemoryId;
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+
+/**
+ * Streaming variant of FarmAssistantAgent: same prompt and tools, but the
+ * reply is delivered token by token as Gemini produces it.
+ */
+public interface FarmAssistantStreamingAgent {
+
+    @SystemMessage(FarmAssistantAgent.SYSTEM_PROMPT)
+    TokenStream chat(@MemoryId String memoryId, @UserMessage String userMessage);
+}
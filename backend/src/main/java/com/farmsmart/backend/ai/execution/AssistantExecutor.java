@@ -0,0 +1,143 @@
+package com.farmsmart.backend.ai.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the assistant pipeline off the Tomcat request threads.
+ *
+ * Every request gets a virtual thread, so a multi-second Gemini round trip
+ * costs no platform thread. A semaphore bulkhead caps how many requests run
+ * at once (app.ai.executor.max-concurrent); up to app.ai.executor.max-queued
+ * more wait for a permit, anything beyond is rejected immediately. POS
+ * endpoints therefore never compete with the assistant for request threads.
+ *
+ * Timed-out tasks are interrupted so they give their permit back.
+ *
+ * Metrics: assistant.executor.active, assistant.executor.queued (gauges),
+ * assistant.executor.queue.wait (timer), assistant.executor.rejected and
+ * assistant.executor.timeouts{stage} (counters).
+ */
+@Component
+public class AssistantExecutor {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("assistant-", 0).factory());
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public AssistantExecutor(MeterRegistry meterRegistry,
+                             @Value("${app.ai.executor.max-concurrent:16}") int maxConcurrent,
+                             @Value("${app.ai.executor.max-queued:64}") int maxQueued) {
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxQueued = maxQueued;
+        this.queueWait = Timer.builder("assistant.executor.queue.wait")
+                .description("Time assistant requests wait for a bulkhead permit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("assistant.executor.rejected")
+                .description("Assistant requests rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("assistant.executor.active", active, AtomicInteger::get)
+                .description("Assistant requests currently running")
+                .register(meterRegistry);
+        Gauge.builder("assistant.executor.queued", queued, AtomicInteger::get)
+                .description("Assistant requests waiting for a bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a request-level task inside the bulkhead. The future fails with
+     * RejectedExecutionException when the queue is full and TimeoutException
+     * after timeout (queue wait included).
+     */
+    public <T> CompletableFuture<T> submit(String stage, Supplier<T> task, Duration timeout) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Assistant is busy, please retry shortly"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+        Future<?> running = executor.submit(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                result.completeExceptionally(e);
+                return;
+            }
+            queued.decrementAndGet();
+            queueWait.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+            active.incrementAndGet();
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+            }
+        });
+
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                timedOut(stage);
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run one stage of an already admitted request with its own deadline.
+     * Blocks the calling (virtual) thread; interrupts the stage on timeout.
+     */
+    public <T> T callWithTimeout(String stage, Callable<T> task, Duration timeout) throws Exception {
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut(stage);
+            future.cancel(true);
+            throw new TimeoutException(stage + " timed out after " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private void timedOut(String stage) {
+        meterRegistry.counter("assistant.executor.timeouts", "stage", stage).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,201 @@
+package com.farmsmart.backend.ai.fake;
+
+import com.farmsmart.backend.ai.memory.AssistantChatMemoryProvider;
+import com.farmsmart.backend.ai.resilience.ModelGuard;
+import com.farmsmart.backend.ai.resilience.ModelGuardRegistry;
+import com.farmsmart.backend.ai.resilience.ModelUnavailableException;
+import com.farmsmart.backend.service.FarmAssistantService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline load test of the assistant pipeline (profile load-harness, normally
+ * together with fake-llm):
+ *
+ *   --spring.profiles.active=fake-llm,load-harness
+ *
+ * Once the app is ready, app.load-harness.conversations conversations of
+ * app.load-harness.turns messages each are driven through
+ * FarmAssistantService.chatOrThrowAsync, at most app.load-harness.concurrency
+ * at a time, every conversation with its own memory. Requests take the same
+ * path as /api/assistant/chat: bulkhead, classifier, planner, database, model
+ * guards; only the fallback replies of chat() are left out, so failures are
+ * counted as such instead of as answers. The default concurrency fits the
+ * bulkhead (max-concurrent + max-queued); raise it to measure rejections.
+ *
+ * The report lists latency percentiles, throughput, rejected/unavailable/
+ * timed-out/failed requests and the final model guard limits. With app.load-harness.exit=true
+ * the application shuts down afterwards.
+ */
+@Component
+@Profile("load-harness")
+public class AssistantLoadHarness {
+
+    private final FarmAssistantService assistantService;
+    private final ModelGuardRegistry modelGuards;
+    private final ResourceLoader resourceLoader;
+    private final ApplicationContext applicationContext;
+    private final int conversations;
+    private final int turns;
+    private final int concurrency;
+    private final String queriesLocation;
+    private final boolean exitWhenDone;
+
+    public AssistantLoadHarness(FarmAssistantService assistantService,
+                                ModelGuardRegistry modelGuards,
+                                ResourceLoader resourceLoader,
+                                ApplicationContext applicationContext,
+                                @Value("${app.load-harness.conversations:2000}") int conversations,
+                                @Value("${app.load-harness.turns:3}") int turns,
+                                @Value("${app.load-harness.concurrency:64}") int concurrency,
+                                @Value("${app.load-harness.queries:classpath:ai/load-harness-queries.txt}") String queriesLocation,
+                                @Value("${app.load-harness.exit:true}") boolean exitWhenDone) {
+        this.assistantService = assistantService;
+        this.modelGuards = modelGuards;
+        this.resourceLoader = resourceLoader;
+        this.applicationContext = applicationContext;
+        this.conversations = conversations;
+        this.turns = turns;
+        this.concurrency = concurrency;
+        this.queriesLocation = queriesLocation;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    /**
+     * After the other ApplicationReadyEvent listeners (dictionary, example bank) have run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onReady() {
+        Thread.ofPlatform().name("load-harness").start(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                System.err.println("❌ AssistantLoadHarness: Run failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            if (exitWhenDone) {
+                System.exit(SpringApplication.exit(applicationContext, () -> 0));
+            }
+        });
+    }
+
+    public void run() throws IOException, InterruptedException {
+        List<String> queries = loadQueries();
+        if (queries.isEmpty()) {
+            throw new IllegalStateException("No queries in " + queriesLocation);
+        }
+        int total = conversations * turns;
+        long[] latencies = new long[total];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger unavailable = new AtomicInteger();
+        AtomicInteger timedOut = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore slots = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(conversations);
+
+        System.out.println("🏋️ AssistantLoadHarness: " + conversations + " conversations x " + turns
+                + " turns, concurrency " + concurrency);
+        long start = System.nanoTime();
+
+        for (int c = 0; c < conversations; c++) {
+            int conversation = c;
+            slots.acquire();
+            Thread.ofVirtual().name("load-harness-", c).start(() -> {
+                String memoryId = AssistantChatMemoryProvider.memoryId(null, "load-" + conversation);
+                try {
+                    for (int t = 0; t < turns; t++) {
+                        String query = queries.get((conversation + t) % queries.size());
+                        long sent = System.nanoTime();
+                        try {
+                            assistantService.chatOrThrowAsync(memoryId, query).get();
+                            latencies[recorded.getAndIncrement()] = System.nanoTime() - sent;
+                        } catch (ExecutionException e) {
+                            if (e.getCause() instanceof RejectedExecutionException) {
+                                rejected.incrementAndGet();
+                            } else if (e.getCause() instanceof ModelUnavailableException) {
+                                unavailable.incrementAndGet();
+                            } else if (e.getCause() instanceof TimeoutException) {
+                                timedOut.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    assistantService.clearConversation(memoryId);
+                    slots.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(Arrays.copyOf(latencies, recorded.get()), total, seconds, rejected.get(), unavailable.get(),
+                timedOut.get(), failed.get());
+    }
+
+    private void report(long[] latencies, int total, double seconds, int rejected, int unavailable,
+                        int timedOut, int failed) {
+        Arrays.sort(latencies);
+        StringBuilder sb = new StringBuilder("🏋️ AssistantLoadHarness report\n");
+        sb.append(String.format("  requests: %d in %.1fs (%.1f req/s)%n", total, seconds, total / seconds));
+        sb.append(String.format("  ok: %d, rejected: %d, model unavailable: %d, timed out: %d, failed: %d%n",
+                latencies.length, rejected, unavailable, timedOut, failed));
+        if (latencies.length > 0) {
+            sb.append(String.format("  latency ms: p50=%d p90=%d p99=%d max=%d%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.90),
+                    percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000));
+        }
+        for (ModelGuard guard : modelGuards.getGuards().values()) {
+            sb.append(String.format("  model %s: circuit=%s limit=%d%n", guard.name(), guard.state(), guard.limit()));
+        }
+        System.out.print(sb);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * p) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+
+    private List<String> loadQueries() throws IOException {
+        List<String> queries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(queriesLocation).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    queries.add(line);
+                }
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,162 @@
+package com.farmsmart.backend.ai.fake;
+
+import com.farmsmart.backend.ai.intent.IntentPromptCatalog;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.ImageContent;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deterministic stand-in for Gemini (profile fake-llm).
+ *
+ * - Intent classifier calls (IntentPromptCatalog system prompt) get the
+ *   scripted CLASSIFY answer for the user message, or UNKNOWN.
+ * - Image prompts get the scripted VISION answer.
+ * - Assistant turns get a scripted CHAT answer if one matches. Otherwise, when
+ *   tools are offered, the first turn calls queryDatabase with the user's text
+ *   and the turn after the tool result summarizes it, so the full tool path
+ *   (classifier, planner, database) runs as it would with Gemini.
+ *
+ * Every call sleeps for a FakeLatency sample. Token usage is estimated at
+ * four characters per token.
+ */
+public class FakeChatModel implements ChatLanguageModel {
+
+    private static final String DATABASE_TOOL = "queryDatabase";
+    private static final int SUMMARY_CHARS = 400;
+
+    private final FakeLlmScript script;
+    private final FakeLatency latency;
+
+    public FakeChatModel(FakeLlmScript script, FakeLatency latency) {
+        this.script = script;
+        this.latency = latency;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return generate(messages, List.of());
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        return generate(messages, List.of(toolSpecification));
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        latency.await();
+        return respond(messages, toolSpecifications);
+    }
+
+    /**
+     * Structured-output calls (classifier, vision); the response format is
+     * not enforced, scripts are expected to contain matching JSON
+     */
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        Response<AiMessage> response = generate(chatRequest.messages(),
+                chatRequest.toolSpecifications() != null ? chatRequest.toolSpecifications() : List.of());
+        return ChatResponse.builder()
+                .aiMessage(response.content())
+                .tokenUsage(response.tokenUsage())
+                .finishReason(response.finishReason())
+                .build();
+    }
+
+    /**
+     * The scripted answer without latency; shared with FakeStreamingChatModel
+     */
+    Response<AiMessage> respond(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        ChatMessage last = messages.get(messages.size() - 1);
+        int inputTokens = estimateTokens(messages);
+
+        if (last instanceof ToolExecutionResultMessage toolResult) {
+            String result = toolResult.text();
+            String summary = result.length() > SUMMARY_CHARS ? result.substring(0, SUMMARY_CHARS) + "..." : result;
+            return text("Here is what I found:\n" + summary, inputTokens);
+        }
+
+        String userText = last instanceof UserMessage user ? text(user) : String.valueOf(last);
+        if (last instanceof UserMessage user && hasImage(user)) {
+            return text(script.respond(FakeLlmScript.Kind.VISION, userText).orElse("{}"), inputTokens);
+        }
+
+        if (isClassification(messages)) {
+            String intents = script.respond(FakeLlmScript.Kind.CLASSIFY, userText)
+                    .orElse("{\"intent\": \"UNKNOWN\", \"entities\": {}}");
+            // Scripts may list a single intent object; the response schema always wraps it
+            return text(intents.contains("\"intents\"") ? intents : "{\"intents\": [" + intents + "]}", inputTokens);
+        }
+
+        var scripted = script.respond(FakeLlmScript.Kind.CHAT, userText);
+        if (scripted.isPresent()) {
+            return text(scripted.get(), inputTokens);
+        }
+        ToolSpecification databaseTool = toolSpecifications == null ? null : toolSpecifications.stream()
+                .filter(spec -> DATABASE_TOOL.equals(spec.name()))
+                .findFirst()
+                .orElse(null);
+        if (databaseTool != null) {
+            String argument = databaseTool.parameters() != null && !databaseTool.parameters().properties().isEmpty()
+                    ? databaseTool.parameters().properties().keySet().iterator().next()
+                    : "arg0";
+            ToolExecutionRequest request = ToolExecutionRequest.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(DATABASE_TOOL)
+                    .arguments("{\"" + argument + "\": \"" + jsonEscape(userText) + "\"}")
+                    .build();
+            return Response.from(AiMessage.from(request), new TokenUsage(inputTokens, 20), FinishReason.TOOL_EXECUTION);
+        }
+        return text("OK", inputTokens);
+    }
+
+    private static Response<AiMessage> text(String text, int inputTokens) {
+        return Response.from(AiMessage.from(text), new TokenUsage(inputTokens, text.length() / 4 + 1), FinishReason.STOP);
+    }
+
+    private static boolean isClassification(List<ChatMessage> messages) {
+        return messages.get(0) instanceof SystemMessage system && system.text().startsWith(IntentPromptCatalog.HEADER);
+    }
+
+    private static String text(UserMessage message) {
+        StringBuilder sb = new StringBuilder();
+        for (Content content : message.contents()) {
+            if (content instanceof TextContent text) {
+                sb.append(text.text());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasImage(UserMessage message) {
+        return message.contents().stream().anyMatch(content -> content instanceof ImageContent);
+    }
+
+    private static int estimateTokens(List<ChatMessage> messages) {
+        int chars = 0;
+        for (ChatMessage message : messages) {
+            chars += String.valueOf(message).length();
+        }
+        return chars / 4 + 1;
+    }
+
+    private static String jsonEscape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
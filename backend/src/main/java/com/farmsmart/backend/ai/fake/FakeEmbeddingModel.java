@@ -0,0 +1,65 @@
+package com.farmsmart.backend.ai.fake;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic embeddings by feature hashing of words and character
+ * trigrams. Texts that share words land close together, which is enough for
+ * the intent router and knowledge search to behave plausibly offline.
+ */
+public class FakeEmbeddingModel implements EmbeddingModel {
+
+    private final int dimension;
+    private final FakeLatency latency;
+
+    public FakeEmbeddingModel(int dimension, FakeLatency latency) {
+        this.dimension = dimension;
+        this.latency = latency;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        latency.await();
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        int tokens = 0;
+        for (TextSegment segment : textSegments) {
+            embeddings.add(Embedding.from(vector(segment.text())));
+            tokens += segment.text().length() / 4 + 1;
+        }
+        return Response.from(embeddings, new TokenUsage(tokens));
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    private float[] vector(String text) {
+        float[] vector = new float[dimension];
+        String normalized = text.toLowerCase(Locale.ROOT);
+        for (String word : normalized.split("[^\\p{L}\\p{N}{}]+")) {
+            if (word.isEmpty()) continue;
+            add(vector, word, 2.0f);
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3), 1.0f);
+            }
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode();
+        int index = Math.floorMod(hash, dimension);
+        // Second hash bit picks the sign so collisions cancel out on average
+        vector[index] += (hash & 0x10000) == 0 ? weight : -weight;
+    }
+}
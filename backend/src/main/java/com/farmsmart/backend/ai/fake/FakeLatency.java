@@ -0,0 +1,48 @@
+package com.farmsmart.backend.ai.fake;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency with a given median and 99th percentile, which is
+ * roughly the shape of real model response times (long right tail).
+ * Also injects failures at failureRate.
+ */
+public class FakeLatency {
+
+    private static final double Z_99 = 2.326;
+
+    private final double mu;
+    private final double sigma;
+    private final double failureRate;
+
+    public FakeLatency(Duration median, Duration p99, double failureRate) {
+        double medianMs = Math.max(1, median.toMillis());
+        double p99Ms = Math.max(medianMs, p99.toMillis());
+        this.mu = Math.log(medianMs);
+        this.sigma = Math.log(p99Ms / medianMs) / Z_99;
+        this.failureRate = failureRate;
+    }
+
+    public long sampleMillis() {
+        if (mu == 0 && sigma == 0) {
+            return 0;
+        }
+        return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * Sleep for one sample, then fail with the configured probability
+     */
+    public void await() {
+        try {
+            Thread.sleep(sampleMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Fake model call interrupted", e);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new RuntimeException("Fake model: injected failure");
+        }
+    }
+}
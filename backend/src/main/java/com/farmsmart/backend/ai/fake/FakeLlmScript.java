@@ -0,0 +1,65 @@
+package com.farmsmart.backend.ai.fake;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Scripted responses for the fake models.
+ *
+ * One rule per line: KIND|regex => response, where KIND is CLASSIFY (intent
+ * classifier prompts), CHAT (assistant turns) or VISION (image prompts).
+ * The regex is matched case-insensitively against the user text; the first
+ * matching rule of the kind wins. "\n" in a response becomes a newline.
+ */
+public class FakeLlmScript {
+
+    public enum Kind { CLASSIFY, CHAT, VISION }
+
+    private static final String ARROW = " => ";
+
+    private record Rule(Kind kind, Pattern pattern, String response) {}
+
+    private final List<Rule> rules;
+
+    private FakeLlmScript(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public static FakeLlmScript load(InputStream input) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int kindEnd = line.indexOf('|');
+                int arrow = line.indexOf(ARROW, kindEnd + 1);
+                if (kindEnd < 0 || arrow < 0) continue;
+                rules.add(new Rule(Kind.valueOf(line.substring(0, kindEnd).trim()),
+                        Pattern.compile(line.substring(kindEnd + 1, arrow).trim(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL),
+                        line.substring(arrow + ARROW.length()).trim().replace("\\n", "\n")));
+            }
+        }
+        return new FakeLlmScript(rules);
+    }
+
+    public Optional<String> respond(Kind kind, String text) {
+        for (Rule rule : rules) {
+            if (rule.kind() == kind && rule.pattern().matcher(text).find()) {
+                return Optional.of(rule.response());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int size() {
+        return rules.size();
+    }
+}
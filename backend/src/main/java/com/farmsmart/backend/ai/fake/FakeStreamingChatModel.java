@@ -0,0 +1,61 @@
+package com.farmsmart.backend.ai.fake;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Streaming variant of FakeChatModel. After the first-token latency the
+ * answer is emitted word by word from a virtual thread.
+ */
+public class FakeStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final FakeChatModel chatModel;
+    private final FakeLatency latency;
+    private final long tokenDelayMs;
+
+    public FakeStreamingChatModel(FakeChatModel chatModel, FakeLatency latency, long tokenDelayMs) {
+        this.chatModel = chatModel;
+        this.latency = latency;
+        this.tokenDelayMs = tokenDelayMs;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        generate(messages, List.of(), handler);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        generate(messages, List.of(toolSpecification), handler);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        Thread.ofVirtual().name("fake-llm-stream").start(() -> {
+            try {
+                latency.await();
+                Response<AiMessage> response = chatModel.respond(messages, toolSpecifications);
+                String text = response.content().text();
+                if (text != null) {
+                    for (String word : text.split("(?<= )")) {
+                        handler.onNext(word);
+                        if (tokenDelayMs > 0) {
+                            Thread.sleep(tokenDelayMs);
+                        }
+                    }
+                }
+                handler.onComplete(response);
+            } catch (Throwable e) {
+                handler.onError(e);
+            }
+        });
+    }
+}
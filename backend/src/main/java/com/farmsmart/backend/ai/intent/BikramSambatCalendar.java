@@ -0,0 +1,141 @@
+package com.farmsmart.backend.ai.intent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bikram Sambat (Nepali) calendar over the years listed in its table resource.
+ *
+ * BS month lengths vary from year to year and are published rather than
+ * computed, so conversion only works inside the table; outside it the methods
+ * return null and callers treat the date as unknown.
+ */
+public final class BikramSambatCalendar {
+
+    /**
+     * A BS date; month is 1 (Baisakh) to 12 (Chaitra)
+     */
+    public record BsDate(int year, int month, int day) {}
+
+    private final int firstYear;
+    private final LocalDate firstDay;
+    private final int[][] monthLengths;
+    // Gregorian date of Baisakh 1 of every year, plus the day after the last year
+    private final LocalDate[] yearStarts;
+
+    private BikramSambatCalendar(int firstYear, LocalDate firstDay, List<int[]> years) {
+        this.firstYear = firstYear;
+        this.firstDay = firstDay;
+        this.monthLengths = years.toArray(int[][]::new);
+        this.yearStarts = new LocalDate[monthLengths.length + 1];
+        yearStarts[0] = firstDay;
+        for (int i = 0; i < monthLengths.length; i++) {
+            int days = 0;
+            for (int length : monthLengths[i]) {
+                days += length;
+            }
+            yearStarts[i + 1] = yearStarts[i].plusDays(days);
+        }
+    }
+
+    /**
+     * Reads "start yyyy-MM-dd" followed by one "year d1 .. d12" line per year, in order
+     */
+    public static BikramSambatCalendar load(InputStream in) throws IOException {
+        LocalDate start = null;
+        int firstYear = 0;
+        List<int[]> years = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\\s+");
+                if (fields[0].equals("start")) {
+                    start = LocalDate.parse(fields[1]);
+                    continue;
+                }
+                if (fields.length != 13) {
+                    throw new IOException("Expected a year and 12 month lengths: " + line);
+                }
+                int year = Integer.parseInt(fields[0]);
+                if (years.isEmpty()) {
+                    firstYear = year;
+                } else if (year != firstYear + years.size()) {
+                    throw new IOException("BS years must be consecutive: " + line);
+                }
+                int[] lengths = new int[12];
+                for (int m = 0; m < 12; m++) {
+                    lengths[m] = Integer.parseInt(fields[m + 1]);
+                }
+                years.add(lengths);
+            }
+        }
+        if (start == null || years.isEmpty()) {
+            throw new IOException("BS calendar needs a start date and at least one year");
+        }
+        return new BikramSambatCalendar(firstYear, start, years);
+    }
+
+    public int firstYear() {
+        return firstYear;
+    }
+
+    /**
+     * Gregorian date of the last day in the table
+     */
+    public LocalDate lastDay() {
+        return yearStarts[monthLengths.length].minusDays(1);
+    }
+
+    public boolean covers(int bsYear) {
+        return bsYear >= firstYear && bsYear < firstYear + monthLengths.length;
+    }
+
+    /**
+     * Days in a BS month, or 0 outside the table
+     */
+    public int monthLength(int bsYear, int month) {
+        return covers(bsYear) && month >= 1 && month <= 12 ? monthLengths[bsYear - firstYear][month - 1] : 0;
+    }
+
+    /**
+     * Gregorian date of a BS date, or null if it is outside the table or not a valid day
+     */
+    public LocalDate toGregorian(int bsYear, int month, int day) {
+        if (day < 1 || day > monthLength(bsYear, month)) {
+            return null;
+        }
+        LocalDate date = yearStarts[bsYear - firstYear];
+        for (int m = 1; m < month; m++) {
+            date = date.plusDays(monthLength(bsYear, m));
+        }
+        return date.plusDays(day - 1);
+    }
+
+    /**
+     * BS date of a Gregorian date, or null outside the table
+     */
+    public BsDate fromGregorian(LocalDate date) {
+        if (date.isBefore(firstDay) || !date.isBefore(yearStarts[monthLengths.length])) {
+            return null;
+        }
+        int i = 0;
+        while (!date.isBefore(yearStarts[i + 1])) {
+            i++;
+        }
+        int dayOfYear = (int) (date.toEpochDay() - yearStarts[i].toEpochDay());
+        int month = 0;
+        while (dayOfYear >= monthLengths[i][month]) {
+            dayOfYear -= monthLengths[i][month];
+            month++;
+        }
+        return new BsDate(firstYear + i, month + 1, dayOfYear + 1);
+    }
+}
@@ -0,0 +1,20 @@
+package com.farmsmart.backend.ai.intent;
+
+/**
+ * Which stage of the IntentClassifier produced an IntentRequest.
+ * Used for per-tier hit-rate metrics and the audit trail.
+ */
+public enum ClassificationTier {
+
+    /** Local keyword rules + entity dictionary, no network call */
+    RULES,
+
+    /** Earlier LLM classification of the same (slot-templated) query */
+    CACHE,
+
+    /** Nearest labelled example in the embedding index */
+    EMBEDDING,
+
+    /** Full LLM classification prompt */
+    LLM
+}
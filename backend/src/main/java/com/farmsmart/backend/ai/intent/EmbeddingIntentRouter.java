@@ -0,0 +1,268 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.intent.EntityDictionary.EntityType;
+import com.farmsmart.backend.ai.intent.EntityDictionary.TemplatedQuery;
+import com.farmsmart.backend.ai.query.SqlTemplateRegistry;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Nearest-neighbour intent router: the middle tier between the keyword rules
+ * and the full LLM prompt.
+ *
+ * A bank of labelled example queries (resource app.ai.intent.examples) is
+ * embedded in a single batch call at startup and kept in memory as unit
+ * vectors. Routing embeds the slot-templated query once and takes the example
+ * with the highest cosine similarity - a few hundred dot products, so the
+ * embedding call dominates latency.
+ *
+ * Matches below app.ai.intent.embedding-threshold, date queries, and intents
+ * needing an entity the dictionary did not find return empty and go to the LLM.
+ *
+ * Latency: assistant.intent.embedding.latency (p50/p99 published).
+ */
+@Component
+public class EmbeddingIntentRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingIntentRouter.class);
+
+    // Filled with defaults by the QueryPlanner, so never a reason to fall back
+    private static final Set<String> DEFAULTED_PARAMS = Set.of("limit", "threshold");
+
+    private record ExampleIndex(QueryIntent[] intents, String[] texts, float[][] vectors) {}
+
+    private final EmbeddingModel embeddingModel;
+    private final EntityDictionary entityDictionary;
+    private final RuleBasedIntentClassifier ruleClassifier;
+    private final SqlTemplateRegistry templateRegistry;
+    private final ResourceLoader resourceLoader;
+    private final String examplesLocation;
+    private final double similarityThreshold;
+    private final Timer routeTimer;
+
+    private volatile ExampleIndex index;
+
+    public EmbeddingIntentRouter(EmbeddingModel embeddingModel,
+                                 EntityDictionary entityDictionary,
+                                 RuleBasedIntentClassifier ruleClassifier,
+                                 SqlTemplateRegistry templateRegistry,
+                                 ResourceLoader resourceLoader,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.ai.intent.examples:classpath:ai/intent-examples.txt}") String examplesLocation,
+                                 @Value("${app.ai.intent.embedding-threshold:0.82}") double similarityThreshold) {
+        this.embeddingModel = embeddingModel;
+        this.entityDictionary = entityDictionary;
+        this.ruleClassifier = ruleClassifier;
+        this.templateRegistry = templateRegistry;
+        this.resourceLoader = resourceLoader;
+        this.examplesLocation = examplesLocation;
+        this.similarityThreshold = similarityThreshold;
+        this.routeTimer = Timer.builder("assistant.intent.embedding.latency")
+                .description("Embedding router: query embedding + nearest-neighbour search")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Example bank not built, router disabled: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read the example file and embed all examples in one batch
+     */
+    public void rebuild() throws IOException {
+        List<QueryIntent> intents = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Resource resource = resourceLoader.getResource(examplesLocation);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int sep = line.indexOf('|');
+                if (sep < 0) continue;
+                try {
+                    intents.add(QueryIntent.valueOf(line.substring(0, sep).trim()));
+                    texts.add(line.substring(sep + 1).trim());
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping example with unknown intent: {}", line);
+                }
+            }
+        }
+        if (texts.isEmpty()) {
+            index = null;
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Embedding> embeddings = embeddingModel.embedAll(texts.stream().map(TextSegment::from).toList()).content();
+        float[][] vectors = new float[embeddings.size()][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = unit(embeddings.get(i).vector());
+        }
+        index = new ExampleIndex(intents.toArray(QueryIntent[]::new), texts.toArray(String[]::new), vectors);
+
+        logger.info("Embedded {} examples in {} ms", vectors.length, (System.nanoTime() - start) / 1_000_000);
+        benchmarkSearch();
+    }
+
+    /**
+     * Route a query to the nearest example's intent, or empty to defer to the LLM
+     */
+    public Optional<IntentRequest> route(String userQuery) {
+        ExampleIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        // The example bank has no date-range intents
+        if (ruleClassifier.mentionsDates(userQuery)) {
+            return Optional.empty();
+        }
+        TemplatedQuery templated = entityDictionary.template(userQuery);
+        if (templated == null) {
+            return Optional.empty();
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            float[] query = unit(embeddingModel.embed(templated.text()).content().vector());
+            int best = nearest(current.vectors(), query);
+            double similarity = dot(current.vectors()[best], query);
+            QueryIntent intent = current.intents()[best];
+            if (similarity < similarityThreshold) {
+                return Optional.empty();
+            }
+
+            Map<String, Object> entities = new HashMap<>();
+            for (Map.Entry<EntityType, String> slot : templated.slotValues().entrySet()) {
+                entities.put(slot.getKey().getEntityKey(), slot.getValue());
+            }
+            if (intent == QueryIntent.KNOWLEDGE_SEARCH) {
+                entities.put("query", userQuery.trim());
+            } else if (!hasRequiredEntities(intent, entities)) {
+                return Optional.empty();
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} via \"{}\" (similarity {})", intent, current.texts()[best],
+                        String.format("%.3f", similarity));
+            }
+            return Optional.of(IntentRequest.builder()
+                    .intent(intent)
+                    .entities(entities)
+                    .originalQuery(userQuery)
+                    .confidence(similarity)
+                    .tier(ClassificationTier.EMBEDDING)
+                    .build());
+        } catch (Exception e) {
+            logger.warn("Routing failed: {}", e.getMessage());
+            return Optional.empty();
+        } finally {
+            sample.stop(routeTimer);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    private boolean hasRequiredEntities(QueryIntent intent, Map<String, Object> entities) {
+        if (!templateRegistry.hasTemplate(intent)) {
+            return false;
+        }
+        for (String param : templateRegistry.getTemplate(intent).getRequiredParams()) {
+            if (!DEFAULTED_PARAMS.contains(param) && !entities.containsKey(param)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Time the in-memory search alone, using each example as a query.
+     * Logged at startup so regressions in the index size show up without network noise.
+     */
+    private void benchmarkSearch() {
+        ExampleIndex current = index;
+        int n = current.vectors().length;
+        long[] nanos = new long[n];
+        for (int i = 0; i < n; i++) {
+            long start = System.nanoTime();
+            nearest(current.vectors(), current.vectors()[i]);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        logger.info("Search p50={}µs, p99={}µs over {} examples",
+                nanos[n / 2] / 1000, nanos[Math.min(n - 1, (int) Math.ceil(n * 0.99) - 1)] / 1000, n);
+    }
+
+    private static int nearest(float[][] vectors, float[] query) {
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.length; i++) {
+            double score = dot(vectors[i], query);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Scale to unit length so cosine similarity is a plain dot product
+     */
+    private static float[] unit(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return vector;
+        }
+        float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) (vector[i] / norm);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,269 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.event.DataChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory dictionary of product, customer and category names used to spot
+ * entities in a user query without asking the LLM.
+ *
+ * Names are loaded with three small queries and swapped in as one immutable
+ * snapshot, so lookups never block on a refresh. Matching is whole-word and
+ * longest-name-first ("Flu Vaccine Plus" wins over "Flu Vaccine").
+ *
+ * The same load feeds EntityResolutionIndex, so spotting a name and resolving
+ * it to ids never disagree. A reload follows shortly after customer/product
+ * writes (coalesced, since every sale also updates product stock), with a
+ * periodic reload as a backstop for writes that publish no event.
+ */
+@Component
+public class EntityDictionary {
+
+    /**
+     * Kind of dictionary entry and the IntentRequest entity key it fills
+     */
+    public enum EntityType {
+        PRODUCT("productName"),
+        CUSTOMER("customerName"),
+        CATEGORY("category");
+
+        private final String entityKey;
+
+        EntityType(String entityKey) {
+            this.entityKey = entityKey;
+        }
+
+        public String getEntityKey() {
+            return entityKey;
+        }
+    }
+
+    /**
+     * A dictionary name found in a query. start/end index the normalized query.
+     */
+    public record Mention(EntityType type, String value, int start, int end) {}
+
+    /**
+     * Query with each mention replaced by its slot, e.g. "what does {customerName} owe",
+     * plus the names that filled the slots
+     */
+    public record TemplatedQuery(String text, Map<EntityType, String> slotValues) {}
+
+    /**
+     * A loaded customer or product name and its row id
+     */
+    public record NamedRow(UUID id, String name, String normalized) {}
+
+    private static final Set<String> SOURCE_TABLES = Set.of("product", "customer");
+
+    private record Entry(EntityType type, String value, String normalized) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityResolutionIndex resolutionIndex;
+
+    private volatile List<Entry> entries = List.of();
+    private volatile boolean dirty;
+
+    public EntityDictionary(JdbcTemplate jdbcTemplate, EntityResolutionIndex resolutionIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.resolutionIndex = resolutionIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        refresh();
+    }
+
+    /**
+     * Mark the names stale; the next refresh tick reloads them once for any number of writes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.tables().stream().anyMatch(SOURCE_TABLES::contains)) {
+            dirty = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.entity-dictionary.refresh-delay-ms:5000}")
+    public void refreshIfDirty() {
+        if (dirty) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reload all names, for the dictionary and the resolution index
+     */
+    @Scheduled(fixedDelayString = "${app.ai.entity-dictionary.refresh-ms:300000}",
+               initialDelayString = "${app.ai.entity-dictionary.refresh-ms:300000}")
+    public void refresh() {
+        dirty = false;
+        try {
+            List<NamedRow> products = loadRows("SELECT id, name FROM product WHERE name IS NOT NULL");
+            List<NamedRow> customers = loadRows("SELECT id, name FROM customer WHERE name IS NOT NULL");
+            List<Entry> loaded = new ArrayList<>();
+            addRows(loaded, EntityType.PRODUCT, products);
+            addRows(loaded, EntityType.CUSTOMER, customers);
+            load(loaded, EntityType.CATEGORY, "SELECT DISTINCT category FROM product WHERE category IS NOT NULL");
+            loaded.sort(Comparator.comparingInt((Entry e) -> e.normalized().length()).reversed());
+            entries = List.copyOf(loaded);
+            resolutionIndex.rebuild(EntityType.PRODUCT, products);
+            resolutionIndex.rebuild(EntityType.CUSTOMER, customers);
+            System.out.println("📖 EntityDictionary: Loaded " + loaded.size() + " names");
+        } catch (Exception e) {
+            dirty = true;
+            System.err.println("❌ EntityDictionary: Refresh failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Find all non-overlapping dictionary names in the query, longest first
+     */
+    public List<Mention> findMentions(String query) {
+        String normalized = normalize(query);
+        String padded = " " + normalized + " ";
+        boolean[] taken = new boolean[padded.length()];
+        List<Mention> mentions = new ArrayList<>();
+
+        for (Entry entry : entries) {
+            String needle = " " + entry.normalized() + " ";
+            int from = 0;
+            int idx;
+            while ((idx = padded.indexOf(needle, from)) >= 0) {
+                int start = idx + 1;
+                int end = start + entry.normalized().length();
+                if (isFree(taken, start, end)) {
+                    for (int i = start; i < end; i++) taken[i] = true;
+                    mentions.add(new Mention(entry.type(), entry.value(), start - 1, end - 1));
+                    break;
+                }
+                from = idx + 1;
+            }
+        }
+        mentions.sort(Comparator.comparingInt(Mention::start));
+        return mentions;
+    }
+
+    /**
+     * First mention per type, e.g. {PRODUCT=Flu Vaccine, CUSTOMER=Ram Bahadur}
+     */
+    public Map<EntityType, String> findFirstByType(String query) {
+        Map<EntityType, String> found = new LinkedHashMap<>();
+        for (Mention mention : findMentions(query)) {
+            found.putIfAbsent(mention.type(), mention.value());
+        }
+        return found;
+    }
+
+    /**
+     * Normalized query with dictionary names replaced by entity slots.
+     * Null when the query is empty or mentions one entity type twice (ambiguous slots).
+     */
+    public TemplatedQuery template(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        Map<EntityType, String> slotValues = new EnumMap<>(EntityType.class);
+        StringBuilder text = new StringBuilder(normalized.length());
+        int pos = 0;
+        for (Mention mention : findMentions(query)) {
+            if (slotValues.putIfAbsent(mention.type(), mention.value()) != null) {
+                return null;
+            }
+            text.append(normalized, pos, mention.start()).append(slotToken(mention.type()));
+            pos = mention.end();
+        }
+        text.append(normalized, pos, normalized.length());
+        return new TemplatedQuery(text.toString(), slotValues);
+    }
+
+    public static String slotToken(EntityType type) {
+        return "{" + type.getEntityKey() + "}";
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Lower-case, keep letters and digits, collapse everything else to single spaces
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') {
+            sb.setLength(len - 1);
+        }
+        return sb.toString();
+    }
+
+    private List<NamedRow> loadRows(String sql) {
+        List<NamedRow> rows = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            String name = rs.getString("name");
+            String normalized = normalize(name);
+            if (!normalized.isEmpty()) {
+                rows.add(new NamedRow(rs.getObject("id", UUID.class), name.trim(), normalized));
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * One dictionary entry per distinct name; the index keeps the ids of duplicates
+     */
+    private static void addRows(List<Entry> target, EntityType type, List<NamedRow> rows) {
+        Set<String> seen = new HashSet<>();
+        for (NamedRow row : rows) {
+            if (seen.add(row.normalized())) {
+                target.add(new Entry(type, row.name(), row.normalized()));
+            }
+        }
+    }
+
+    private void load(List<Entry> target, EntityType type, String sql) {
+        for (String name : jdbcTemplate.queryForList(sql, String.class)) {
+            String normalized = normalize(name);
+            if (!normalized.isEmpty()) {
+                target.add(new Entry(type, name.trim(), normalized));
+            }
+        }
+    }
+
+    private static boolean isFree(boolean[] taken, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (taken[i]) return false;
+        }
+        return true;
+    }
+}
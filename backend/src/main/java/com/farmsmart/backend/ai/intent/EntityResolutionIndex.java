@@ -0,0 +1,261 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.intent.EntityDictionary.EntityType;
+import com.farmsmart.backend.ai.intent.EntityDictionary.NamedRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resolves a customer or product name - as typed by the user or extracted by
+ * the LLM - to primary keys, so query templates can look rows up by id.
+ *
+ * Matching, first hit wins:
+ * 1. EXACT    normalized name ("ram  bahadur" == "Ram Bahadur")
+ * 2. PHONETIC customers only: transliteration-insensitive key, so Laxmi/Lakshmi,
+ *             Shyam/Syam or Bahadur/Bhadur land on the same name; ties broken by
+ *             trigram similarity
+ * 3. TRIGRAM  best trigram (Dice) similarity, for typos
+ *
+ * PHONETIC and TRIGRAM matches both need app.ai.entity-resolution.min-similarity.
+ * Product names are not romanized Nepali, so folding them only adds collisions.
+ *
+ * All customers sharing the matched name are returned. The index is an
+ * immutable snapshot per type, built from the names EntityDictionary loads,
+ * whenever it reloads them; both always see the same names.
+ *
+ * Metrics: assistant.entity.resolution.latency, assistant.entity.resolutions{type, method}.
+ */
+@Component
+public class EntityResolutionIndex {
+
+    public enum Method { EXACT, PHONETIC, TRIGRAM }
+
+    public record Resolution(EntityType type, List<UUID> ids, String matchedName, Method method, double score) {}
+
+    private static final Set<EntityType> INDEXED_TYPES = Set.of(EntityType.CUSTOMER, EntityType.PRODUCT);
+
+    /**
+     * One entry per distinct normalized name
+     */
+    private record Snapshot(String[] names, List<UUID>[] ids, Set<String>[] trigrams,
+                            Map<String, Integer> exact, Map<String, int[]> phonetic,
+                            Map<String, int[]> postings) {
+
+        static final Snapshot EMPTY = build(new LinkedHashMap<>(), false);
+
+        @SuppressWarnings("unchecked")
+        static Snapshot build(Map<String, NameEntry> byNormalized, boolean withPhonetic) {
+            int n = byNormalized.size();
+            String[] names = new String[n];
+            List<UUID>[] ids = new List[n];
+            Set<String>[] trigrams = new Set[n];
+            Map<String, Integer> exact = new HashMap<>(n * 2);
+            Map<String, List<Integer>> phonetic = new HashMap<>();
+            Map<String, List<Integer>> postings = new HashMap<>();
+
+            int i = 0;
+            for (Map.Entry<String, NameEntry> entry : byNormalized.entrySet()) {
+                names[i] = entry.getValue().displayName();
+                ids[i] = List.copyOf(entry.getValue().ids());
+                trigrams[i] = EntityResolutionIndex.trigrams(entry.getKey());
+                exact.put(entry.getKey(), i);
+                if (withPhonetic) {
+                    phonetic.computeIfAbsent(phoneticKey(entry.getKey()), k -> new ArrayList<>()).add(i);
+                }
+                for (String trigram : trigrams[i]) {
+                    postings.computeIfAbsent(trigram, k -> new ArrayList<>()).add(i);
+                }
+                i++;
+            }
+            return new Snapshot(names, ids, trigrams, exact, toArrays(phonetic), toArrays(postings));
+        }
+    }
+
+    private record NameEntry(String displayName, List<UUID> ids) {}
+
+    private final MeterRegistry meterRegistry;
+    private final double minSimilarity;
+    private final Timer resolveTimer;
+
+    private final Map<EntityType, Snapshot> snapshots = new EnumMap<>(EntityType.class);
+
+    public EntityResolutionIndex(MeterRegistry meterRegistry,
+                                 @Value("${app.ai.entity-resolution.min-similarity:0.45}") double minSimilarity) {
+        this.meterRegistry = meterRegistry;
+        this.minSimilarity = minSimilarity;
+        this.resolveTimer = Timer.builder("assistant.entity.resolution.latency")
+                .description("Name to id resolution against the in-memory index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        for (EntityType type : INDEXED_TYPES) {
+            snapshots.put(type, Snapshot.EMPTY);
+        }
+    }
+
+    /**
+     * Swap in the names EntityDictionary just loaded
+     */
+    void rebuild(EntityType type, List<NamedRow> rows) {
+        if (!INDEXED_TYPES.contains(type)) {
+            return;
+        }
+        Map<String, NameEntry> byNormalized = new LinkedHashMap<>();
+        for (NamedRow row : rows) {
+            byNormalized.computeIfAbsent(row.normalized(), k -> new NameEntry(row.name(), new ArrayList<>()))
+                    .ids().add(row.id());
+        }
+        Snapshot snapshot = Snapshot.build(byNormalized, type == EntityType.CUSTOMER);
+        synchronized (snapshots) {
+            snapshots.put(type, snapshot);
+        }
+    }
+
+    /**
+     * Resolve a name to the ids of the best-matching entry, or empty if nothing is close enough
+     */
+    public Optional<Resolution> resolve(EntityType type, String name) {
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(type);
+        }
+        if (snapshot == null || name == null) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            Optional<Resolution> resolution = find(type, snapshot, EntityDictionary.normalize(name));
+            meterRegistry.counter("assistant.entity.resolutions",
+                    "type", type.name().toLowerCase(),
+                    "method", resolution.map(r -> r.method().name().toLowerCase()).orElse("none")).increment();
+            return resolution;
+        } finally {
+            sample.stop(resolveTimer);
+        }
+    }
+
+    private Optional<Resolution> find(EntityType type, Snapshot snapshot, String normalized) {
+        if (normalized.isEmpty() || snapshot.names().length == 0) {
+            return Optional.empty();
+        }
+
+        Integer exact = snapshot.exact().get(normalized);
+        if (exact != null) {
+            return Optional.of(resolution(type, snapshot, exact, Method.EXACT, 1.0));
+        }
+
+        Set<String> queryTrigrams = trigrams(normalized);
+
+        int[] phonetic = snapshot.phonetic().get(phoneticKey(normalized));
+        if (phonetic != null) {
+            int best = phonetic[0];
+            double bestScore = -1;
+            for (int candidate : phonetic) {
+                double score = dice(queryTrigrams, snapshot.trigrams()[candidate]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            }
+            if (bestScore >= minSimilarity) {
+                return Optional.of(resolution(type, snapshot, best, Method.PHONETIC, bestScore));
+            }
+        }
+
+        // Count shared trigrams per candidate via the postings lists
+        int[] shared = new int[snapshot.names().length];
+        for (String trigram : queryTrigrams) {
+            int[] posting = snapshot.postings().get(trigram);
+            if (posting != null) {
+                for (int candidate : posting) {
+                    shared[candidate]++;
+                }
+            }
+        }
+        int best = -1;
+        double bestScore = 0;
+        for (int i = 0; i < shared.length; i++) {
+            if (shared[i] == 0) continue;
+            double score = 2.0 * shared[i] / (queryTrigrams.size() + snapshot.trigrams()[i].size());
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        if (best < 0 || bestScore < minSimilarity) {
+            return Optional.empty();
+        }
+        return Optional.of(resolution(type, snapshot, best, Method.TRIGRAM, bestScore));
+    }
+
+    private static Resolution resolution(EntityType type, Snapshot snapshot, int index, Method method, double score) {
+        return new Resolution(type, snapshot.ids()[index], snapshot.names()[index], method, score);
+    }
+
+    /**
+     * pg_trgm-style trigrams: each word padded with two leading and one trailing space
+     */
+    static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Spelling-insensitive key for romanized Nepali names: aspirated and
+     * retroflex spellings fold together (bh/b, sh/s, ksh/x, w/v), doubled
+     * letters collapse and vowels after the first letter of a word are dropped.
+     */
+    static String phoneticKey(String normalized) {
+        StringBuilder key = new StringBuilder();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) continue;
+            String w = word
+                    .replace("ksh", "x").replace("chh", "c").replace("ch", "c")
+                    .replace("ph", "f").replace("w", "v").replace("z", "j").replace("q", "k");
+            StringBuilder folded = new StringBuilder(w.length());
+            for (int i = 0; i < w.length(); i++) {
+                char c = w.charAt(i);
+                if (i > 0 && (c == 'h' || "aeiouy".indexOf(c) >= 0)) continue;
+                if (folded.length() > 0 && folded.charAt(folded.length() - 1) == c) continue;
+                folded.append(c);
+            }
+            if (key.length() > 0) key.append(' ');
+            key.append(folded);
+        }
+        return key.toString();
+    }
+
+    private static double dice(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) return 0;
+        int shared = 0;
+        for (String trigram : a) {
+            if (b.contains(trigram)) shared++;
+        }
+        return 2.0 * shared / (a.size() + b.size());
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> arrays.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+}
@@ -0,0 +1,144 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.intent.EntityDictionary.EntityType;
+import com.farmsmart.backend.ai.intent.EntityDictionary.TemplatedQuery;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, time-expiring cache of LLM intent classifications.
+ *
+ * Keys are the normalized query with dictionary names replaced by entity slots,
+ * so "What does Ram owe?" and "what does Sita owe" share the key
+ * "what does {customerName} owe". Cached entity values that came from a slot are
+ * stored as the slot and filled from the new query on a hit.
+ *
+ * Not cached: unresolved intents, knowledge questions (the entity is the raw text),
+ * name entities that did not come from a slot, and anything with dates, whose
+ * meaning changes as days pass.
+ *
+ * Hit ratio, size and evictions are published as cache.* metrics with
+ * cache=assistantIntent.
+ */
+@Component
+public class IntentCache {
+
+    private static final Set<String> TIME_DEPENDENT_ENTITIES = Set.of("dateFrom", "dateTo");
+
+    private static final Set<String> NAME_ENTITIES = Arrays.stream(EntityType.values())
+            .map(EntityType::getEntityKey)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private record CachedIntent(QueryIntent intent, Map<String, Object> entities) {}
+
+    private final EntityDictionary entityDictionary;
+    private final Cache<String, CachedIntent> cache;
+
+    public IntentCache(EntityDictionary entityDictionary,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.ai.intent.cache.ttl:30m}") Duration ttl,
+                       @Value("${app.ai.intent.cache.max-size:10000}") long maxSize) {
+        this.entityDictionary = entityDictionary;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "assistantIntent");
+    }
+
+    /**
+     * Cached classification for this query with the query's own entity names filled in
+     */
+    public Optional<IntentRequest> get(String userQuery) {
+        TemplatedQuery key = entityDictionary.template(userQuery);
+        if (key == null) {
+            return Optional.empty();
+        }
+        CachedIntent cached = cache.getIfPresent(key.text());
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        Map<String, Object> entities = new HashMap<>();
+        for (Map.Entry<String, Object> entity : cached.entities().entrySet()) {
+            Object value = entity.getValue();
+            EntityType slot = slotOf(value);
+            entities.put(entity.getKey(), slot != null ? key.slotValues().get(slot) : value);
+        }
+        return Optional.of(IntentRequest.builder()
+                .intent(cached.intent())
+                .entities(entities)
+                .originalQuery(userQuery)
+                .tier(ClassificationTier.CACHE)
+                .build());
+    }
+
+    /**
+     * Remember an LLM classification if it is safe to reuse
+     */
+    public void put(String userQuery, IntentRequest request) {
+        QueryIntent intent = request.getIntent();
+        if (intent == QueryIntent.UNKNOWN || intent == QueryIntent.CLARIFICATION_NEEDED
+                || intent == QueryIntent.KNOWLEDGE_SEARCH) {
+            return;
+        }
+        Map<String, Object> entities = request.getEntities() != null ? request.getEntities() : Map.of();
+        if (entities.keySet().stream().anyMatch(TIME_DEPENDENT_ENTITIES::contains)) {
+            return;
+        }
+        TemplatedQuery key = entityDictionary.template(userQuery);
+        if (key == null) {
+            return;
+        }
+
+        // Replace values the LLM copied from a dictionary name with the slot
+        Map<String, Object> templated = new HashMap<>();
+        for (Map.Entry<String, Object> entity : entities.entrySet()) {
+            Object value = entity.getValue();
+            if (value == null) {
+                continue;
+            }
+            for (Map.Entry<EntityType, String> slot : key.slotValues().entrySet()) {
+                if (value instanceof String s && s.equalsIgnoreCase(slot.getValue())) {
+                    value = EntityDictionary.slotToken(slot.getKey());
+                    break;
+                }
+            }
+            // A name that is not a slot is specific to this query; under the shared key
+            // it would answer "what does Sita owe" with Ram's name
+            if (NAME_ENTITIES.contains(entity.getKey()) && slotOf(value) == null) {
+                return;
+            }
+            templated.put(entity.getKey(), value);
+        }
+        cache.put(key.text(), new CachedIntent(intent, Map.copyOf(templated)));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static EntityType slotOf(Object value) {
+        if (value instanceof String s && s.startsWith("{") && s.endsWith("}")) {
+            for (EntityType type : EntityType.values()) {
+                if (s.equals(EntityDictionary.slotToken(type))) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+}
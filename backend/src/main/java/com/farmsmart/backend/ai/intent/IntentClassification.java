@@ -0,0 +1,16 @@
+package com.farmsmart.backend.ai.intent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format of the LLM classifier answer, read directly by the shared
+ * intentClassificationReader: {"intents": [{"intent": ..., "entities": {...}}]}
+ */
+public record IntentClassification(List<Item> intents) {
+
+    /**
+     * Unknown intent names deserialize to QueryIntent.UNKNOWN
+     */
+    public record Item(QueryIntent intent, Map<String, Object> entities) {}
+}
@@ -0,0 +1,222 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.json.LlmJson;
+import com.farmsmart.backend.ai.query.QueryTemplate;
+import com.farmsmart.backend.ai.query.SqlTemplateRegistry;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.json.JsonArraySchema;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * System prompt of the LLM intent classifier, generated once at startup.
+ *
+ * The intent catalogue is built from QueryIntent and the SqlTemplateRegistry
+ * (description and required parameters of every template), so a new or changed
+ * template shows up in the prompt without editing it. Intents without a
+ * template need an entry in NON_TEMPLATE_INTENTS; a missing one fails startup.
+ *
+ * The prompt is sent as the system instruction and the user query alone as the
+ * user message. Every classification therefore starts with the same prefix,
+ * which Gemini's implicit context caching bills at the cached-token rate, and
+ * the part that changes per call is just the query.
+ *
+ * The answer is constrained by a response schema generated from the same
+ * metadata: the intent must be a QueryIntent name and entities one of the
+ * parameters the templates take.
+ */
+@Component
+public class IntentPromptCatalog {
+
+    /**
+     * First line of the system prompt; FakeChatModel uses it to spot classifier calls
+     */
+    public static final String HEADER = "You are an intent classifier for a poultry farm ERP system.";
+
+    private record NonTemplateIntent(String description, List<String> entities) {}
+
+    private static final Map<QueryIntent, NonTemplateIntent> NON_TEMPLATE_INTENTS = Map.of(
+            QueryIntent.KNOWLEDGE_SEARCH, new NonTemplateIntent(
+                    "Questions about chicken health, feeding, diseases", List.of("query")),
+            QueryIntent.CLARIFICATION_NEEDED, new NonTemplateIntent(
+                    "Query is unclear or ambiguous", List.of()),
+            QueryIntent.UNKNOWN, new NonTemplateIntent(
+                    "Doesn't match any pattern", List.of()));
+
+    // Value format the templates expect, where a bare name is not enough
+    private static final Map<String, String> ENTITY_FORMATS = Map.of(
+            "dateFrom", "yyyy-MM-dd, BS dates unconverted",
+            "dateTo", "yyyy-MM-dd, BS dates unconverted",
+            "saleId", "UUID",
+            "customerType", "FARMER/BUTCHER/RETAIL");
+
+    // Everything else is passed as a string
+    private static final Set<String> INTEGER_ENTITIES = Set.of("limit", "threshold");
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final String systemPrompt;
+    private final int maxIntentsPerQuery;
+    private final ResponseFormat responseFormat;
+
+    public IntentPromptCatalog(SqlTemplateRegistry templateRegistry,
+                               @Value("${app.ai.intent.max-per-query:4}") int maxIntentsPerQuery) {
+        this.maxIntentsPerQuery = maxIntentsPerQuery;
+        this.systemPrompt = buildSystemPrompt(templateRegistry);
+        this.responseFormat = buildResponseFormat(templateRegistry);
+        System.out.println("🤖 IntentPromptCatalog: System prompt ~" + estimateTokens(systemPrompt)
+                + " tokens for " + QueryIntent.values().length + " intents, sent once per call as a cacheable prefix");
+    }
+
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    /**
+     * JSON schema of IntentClassification, for the classifier's chat request
+     */
+    public ResponseFormat getResponseFormat() {
+        return responseFormat;
+    }
+
+    public int getMaxIntentsPerQuery() {
+        return maxIntentsPerQuery;
+    }
+
+    /**
+     * Same ~4 characters per token estimate as ResultCompactor
+     */
+    public static int estimateTokens(String text) {
+        return text.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    private String buildSystemPrompt(SqlTemplateRegistry templateRegistry) {
+        return HEADER + """
+
+
+                Your ONLY job is to classify the user's query into the intents below and extract relevant entities.
+
+                AVAILABLE INTENTS:
+
+                """ + catalogue(templateRegistry) + """
+                RULES:
+                1. Respond with ONLY valid JSON, no explanation
+                2. NEVER generate SQL
+                3. If unclear, use CLARIFICATION_NEEDED
+                4. Entity values are strings, except limit and threshold which are numbers
+
+                OUTPUT FORMAT (JSON ONLY):
+                {
+                  "intents": [
+                    {"intent": "INTENT_NAME", "entities": {"entityKey": "entityValue"}}
+                  ]
+                }
+
+                Most queries need exactly ONE entry. Add one entry per additional distinct
+                question only when the user asks several things at once (at most %d entries).
+
+                EXAMPLES:
+
+                User: "How many Flu Vaccine do we have?"
+                Response: {"intents": [{"intent": "INVENTORY_CHECK_PRODUCT", "entities": {"productName": "Flu Vaccine"}}]}
+
+                User: "Show me products running low"
+                Response: {"intents": [{"intent": "INVENTORY_LOW_STOCK", "entities": {"threshold": 10, "limit": 20}}]}
+
+                User: "What does John Doe owe?"
+                Response: {"intents": [{"intent": "CREDIT_BALANCE_CUSTOMER", "entities": {"customerName": "John Doe"}}]}
+
+                User: "Show recent sales and who has overdue credit"
+                Response: {"intents": [{"intent": "SALES_RECENT", "entities": {"limit": 10}}, {"intent": "CREDIT_OVERDUE_ALL", "entities": {"limit": 10}}]}
+
+                User: "Show me stuff"
+                Response: {"intents": [{"intent": "CLARIFICATION_NEEDED", "entities": {}}]}
+
+                User: "How to treat Newcastle disease?"
+                Response: {"intents": [{"intent": "KNOWLEDGE_SEARCH", "entities": {"query": "Newcastle disease treatment"}}]}
+
+                The next message is the user's query. Respond with JSON only.
+                """.formatted(maxIntentsPerQuery);
+    }
+
+    private static ResponseFormat buildResponseFormat(SqlTemplateRegistry templateRegistry) {
+        Set<String> entityNames = new TreeSet<>();
+        templateRegistry.getAllTemplates().values().forEach(t -> entityNames.addAll(t.getRequiredParams()));
+        NON_TEMPLATE_INTENTS.values().forEach(entry -> entityNames.addAll(entry.entities()));
+
+        JsonObjectSchema.Builder entities = JsonObjectSchema.builder();
+        for (String name : entityNames) {
+            if (INTEGER_ENTITIES.contains(name)) {
+                entities.addIntegerProperty(name);
+            } else {
+                entities.addStringProperty(name);
+            }
+        }
+        JsonObjectSchema item = JsonObjectSchema.builder()
+                .addEnumProperty("intent", Arrays.stream(QueryIntent.values()).map(Enum::name).toList())
+                .addProperty("entities", entities.build())
+                .required("intent", "entities")
+                .build();
+        return LlmJson.responseFormat("IntentClassification", JsonObjectSchema.builder()
+                .addProperty("intents", JsonArraySchema.builder().items(item).build())
+                .required("intents")
+                .build());
+    }
+
+    /**
+     * One section per intent prefix (INVENTORY, SALES, ...), in enum order; non-template intents last
+     */
+    private static String catalogue(SqlTemplateRegistry templateRegistry) {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        List<String> special = new ArrayList<>();
+        for (QueryIntent intent : QueryIntent.values()) {
+            if (templateRegistry.hasTemplate(intent)) {
+                QueryTemplate template = templateRegistry.getTemplate(intent);
+                String section = intent.name().substring(0, intent.name().indexOf('_'));
+                sections.computeIfAbsent(section, k -> new ArrayList<>())
+                        .add(line(intent, template.getDescription(), template.getRequiredParams()));
+            } else {
+                NonTemplateIntent entry = NON_TEMPLATE_INTENTS.get(intent);
+                if (entry == null) {
+                    throw new IllegalStateException("Intent " + intent + " has no SQL template and no prompt description");
+                }
+                special.add(line(intent, entry.description(), entry.entities()));
+            }
+        }
+        sections.put("SPECIAL", special);
+
+        StringBuilder sb = new StringBuilder();
+        sections.forEach((section, lines) -> {
+            sb.append(section).append(":\n");
+            lines.forEach(line -> sb.append(line).append('\n'));
+            sb.append('\n');
+        });
+        return sb.toString();
+    }
+
+    private static String line(QueryIntent intent, String description, List<String> entities) {
+        StringBuilder sb = new StringBuilder("- ").append(intent.name()).append(": ").append(description);
+        if (entities.isEmpty()) {
+            return sb.append(" (no entities needed)").toString();
+        }
+        sb.append(" (entities: ");
+        for (int i = 0; i < entities.size(); i++) {
+            if (i > 0) sb.append(", ");
+            String entity = entities.get(i);
+            sb.append(entity);
+            if (ENTITY_FORMATS.containsKey(entity)) {
+                sb.append(" as ").append(ENTITY_FORMATS.get(entity));
+            }
+        }
+        return sb.append(')').toString();
+    }
+}
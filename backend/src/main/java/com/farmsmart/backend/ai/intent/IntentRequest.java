@@ -38,8 +38,8 @@ public class IntentRequest {
      * - category: String
      * - threshold: Integer
      * - limit: Integer
-     * - dateFrom: String (ISO format)
-     * - dateTo: String (ISO format)
+     * - dateFrom: String (yyyy-MM-dd, AD or BS; inclusive)
+     * - dateTo: String (yyyy-MM-dd, AD or BS; inclusive)
      * - saleId: String (UUID)
      * - customerId: String (UUID)
      * - customerType: String
@@ -53,6 +53,16 @@ public class IntentRequest {
      */
     private String originalQuery;
     
+    /**
+     * Classifier confidence in [0, 1]; null when the LLM classified the query
+     */
+    private Double confidence;
+    
+    /**
+     * Classifier stage that produced this request
+     */
+    private ClassificationTier tier;
+    
     /**
      * Add an entity to the request
      */
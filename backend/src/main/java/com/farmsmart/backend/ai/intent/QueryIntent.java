@@ -1,5 +1,7 @@
 package com.farmsmart.backend.ai.intent;
 
+import com.fasterxml.jackson.annotation.JsonEnumDefaultValue;
+
 /**
  * Enumeration of all supported query intents for the Farm Assistant AI.
  * Each intent maps to a specific SQL template in the SqlTemplateRegistry.
@@ -78,7 +80,8 @@ public enum QueryIntent {
     /** User query is unclear or ambiguous */
     CLARIFICATION_NEEDED,
     
-    /** Query doesn't match any known pattern */
+    /** Query doesn't match any known pattern; also the fallback for unrecognized names in LLM JSON */
+    @JsonEnumDefaultValue
     UNKNOWN,
     
     /** Knowledge base query (not database) */
@@ -0,0 +1,243 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.intent.EntityDictionary.EntityType;
+import com.farmsmart.backend.ai.intent.TemporalExpressionParser.DateRange;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local keyword-and-dictionary classifier: the fast path in front of the LLM.
+ *
+ * Each rule combines keywords with the entity names found by EntityDictionary
+ * and returns a confidence. Unambiguous phrasings ("show low stock", "what does
+ * Ram owe") score high; anything that needs dates, mixes several entities or only
+ * partially matches scores low so IntentClassifier hands it to the LLM.
+ *
+ * Rules never guess entity values - names come from the dictionary only, and
+ * date ranges from TemporalExpressionParser. Sales and payment totals over a
+ * range it resolves are answered here; other date questions go to the LLM.
+ */
+@Component
+public class RuleBasedIntentClassifier {
+
+    private static final double HIGH = 0.95;
+    private static final double GOOD = 0.9;
+    private static final double WEAK = 0.7;
+
+    private static final Pattern UUID_PATTERN = Pattern.compile(
+            "\\b[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIMIT_PATTERN = Pattern.compile("\\b(?:top|last|first|latest|recent)\\s+(\\d{1,3})\\b");
+    private static final Pattern THRESHOLD_PATTERN = Pattern.compile("\\b(?:below|under|less than|fewer than)\\s+(\\d{1,6})\\b");
+
+    // Date words the parser may not resolve; without a range such queries go to the LLM
+    private static final Set<String> DATE_WORDS = Set.of(
+            "today", "yesterday", "week", "month", "year", "since", "between", "from", "last month", "this month");
+
+    // A dated total with any of these asks for a breakdown or filter the total templates lack
+    private static final Set<String> RANGE_QUALIFIERS = Set.of(
+            "who", "whom", "whose", "which", "top", "best", "worst", "most", "least", "highest", "lowest",
+            "overdue", "unpaid", "pending", "customer", "customers", "farmer", "farmers", "butcher", "butchers",
+            "retailer", "retailers", "product", "products", "item", "items", "category", "categories");
+
+    private static final Set<String> KNOWLEDGE_WORDS = Set.of(
+            "disease", "diseases", "symptom", "symptoms", "treat", "treatment", "cure", "infection",
+            "feeding", "feed ratio", "how to", "vaccination schedule", "mortality");
+
+    private static final Map<String, String> CUSTOMER_TYPES = Map.of(
+            "farmer", "FARMER", "farmers", "FARMER",
+            "butcher", "BUTCHER", "butchers", "BUTCHER",
+            "retail", "RETAIL", "retailer", "RETAIL", "retailers", "RETAIL");
+
+    private final EntityDictionary entityDictionary;
+    private final TemporalExpressionParser temporalParser;
+
+    public RuleBasedIntentClassifier(EntityDictionary entityDictionary, TemporalExpressionParser temporalParser) {
+        this.entityDictionary = entityDictionary;
+        this.temporalParser = temporalParser;
+    }
+
+    /**
+     * Classify without network calls. Always returns a request; check its confidence.
+     */
+    public IntentRequest classify(String userQuery) {
+        String q = " " + EntityDictionary.normalize(userQuery) + " ";
+        Map<EntityType, String> found = entityDictionary.findFirstByType(userQuery);
+        String product = found.get(EntityType.PRODUCT);
+        String customer = found.get(EntityType.CUSTOMER);
+        String category = found.get(EntityType.CATEGORY);
+
+        IntentRequest request = IntentRequest.builder()
+                .intent(QueryIntent.UNKNOWN)
+                .originalQuery(userQuery)
+                .confidence(0.0)
+                .tier(ClassificationTier.RULES)
+                .build();
+
+        // Specific sale by id
+        Matcher uuid = UUID_PATTERN.matcher(userQuery);
+        if (uuid.find()) {
+            String saleId = uuid.group().toLowerCase();
+            if (has(q, "payment", "payments", "paid")) {
+                return match(request, QueryIntent.PAYMENT_HISTORY_SALE, HIGH, "saleId", saleId);
+            }
+            return match(request, QueryIntent.SALES_DETAIL,
+                    has(q, "sale", "bill", "invoice") ? HIGH : WEAK, "saleId", saleId);
+        }
+
+        Optional<DateRange> range = temporalParser.parse(userQuery);
+        if (range.isPresent()) {
+            return dateRange(request, q, range.get(), product != null || customer != null);
+        }
+        if (containsAny(q, DATE_WORDS) || temporalParser.hasExpression(userQuery)) {
+            return request;
+        }
+
+        // Product and customer together (e.g. "how much feed did Ram buy") has no template
+        if (product != null && customer != null) {
+            return request;
+        }
+
+        if (customer != null) {
+            if (has(q, "owe", "owes", "debt", "due", "credit", "balance", "outstanding", "udharo")) {
+                return match(request, QueryIntent.CREDIT_BALANCE_CUSTOMER, HIGH, "customerName", customer);
+            }
+            if (has(q, "payment", "payments", "paid", "pay")) {
+                return withLimit(match(request, QueryIntent.PAYMENT_HISTORY_CUSTOMER, GOOD, "customerName", customer), q);
+            }
+            if (has(q, "sales", "sale", "bought", "buy", "purchases", "spent", "orders")) {
+                return match(request, QueryIntent.SALES_TOTAL_BY_CUSTOMER, GOOD, "customerName", customer);
+            }
+            return match(request, QueryIntent.CUSTOMER_INFO,
+                    has(q, "info", "details", "contact", "phone", "address", "who is") ? GOOD : WEAK,
+                    "customerName", customer);
+        }
+
+        if (product != null) {
+            if (has(q, "sales", "sold", "selling", "sell")) {
+                return match(request, QueryIntent.SALES_BY_PRODUCT, GOOD, "productName", product);
+            }
+            return match(request, QueryIntent.INVENTORY_CHECK_PRODUCT,
+                    has(q, "stock", "how many", "how much", "left", "have", "quantity", "available", "remaining") ? HIGH : WEAK,
+                    "productName", product);
+        }
+
+        if (has(q, "low stock", "running low", "out of stock", "restock", "reorder", "stock low")) {
+            withLimit(match(request, QueryIntent.INVENTORY_LOW_STOCK, HIGH), q);
+            Matcher threshold = THRESHOLD_PATTERN.matcher(q);
+            if (threshold.find()) {
+                request.addEntity("threshold", Integer.parseInt(threshold.group(1)));
+            }
+            return request;
+        }
+
+        if (category != null && has(q, "products", "items", "stock", "list", "show", "inventory")) {
+            return match(request, QueryIntent.INVENTORY_BY_CATEGORY, GOOD, "category", category);
+        }
+
+        if (containsAny(q, KNOWLEDGE_WORDS)) {
+            return match(request, QueryIntent.KNOWLEDGE_SEARCH, GOOD, "query", userQuery.trim());
+        }
+
+        if (has(q, "overdue", "late payments", "past due")) {
+            return withLimit(match(request, QueryIntent.CREDIT_OVERDUE_ALL, GOOD), q);
+        }
+
+        if (has(q, "credit", "credits", "debt", "debts", "receivable", "receivables")
+                && has(q, "summary", "total", "overall", "all")) {
+            return match(request, QueryIntent.CREDIT_SUMMARY, GOOD);
+        }
+
+        if (has(q, "sales") && has(q, "recent", "latest", "last")) {
+            return withLimit(match(request, QueryIntent.SALES_RECENT, GOOD), q);
+        }
+
+        boolean listWords = has(q, "all", "list", "show", "every");
+        for (Map.Entry<String, String> type : CUSTOMER_TYPES.entrySet()) {
+            if (has(q, type.getKey()) && (listWords || has(q, "customers", "customer"))) {
+                return match(request, QueryIntent.CUSTOMER_LIST_BY_TYPE, GOOD, "customerType", type.getValue());
+            }
+        }
+        if (has(q, "customers") && listWords) {
+            return match(request, QueryIntent.CUSTOMER_LIST_ALL, GOOD);
+        }
+
+        if (has(q, "all products", "all stock", "full inventory", "whole inventory", "stock list", "list products",
+                "show inventory", "show products", "inventory")) {
+            return match(request, QueryIntent.INVENTORY_ALL, GOOD);
+        }
+
+        return request;
+    }
+
+    /**
+     * True for queries with relative or absolute dates, resolved or not
+     */
+    public boolean mentionsDates(String userQuery) {
+        return containsAny(" " + EntityDictionary.normalize(userQuery) + " ", DATE_WORDS)
+                || temporalParser.hasExpression(userQuery);
+    }
+
+    /**
+     * Plain totals over a resolved range. Ranges combined with a product or customer,
+     * or qualified ("which customers paid last week"), have no template and go to the LLM.
+     */
+    private static IntentRequest dateRange(IntentRequest request, String paddedQuery, DateRange range,
+                                           boolean namesEntity) {
+        if (namesEntity || containsAny(paddedQuery, RANGE_QUALIFIERS)) {
+            return request;
+        }
+        if (has(paddedQuery, "payment", "payments", "paid", "collected", "collection", "collections")) {
+            match(request, QueryIntent.PAYMENT_SUMMARY_BY_METHOD, GOOD);
+        } else if (has(paddedQuery, "sales", "sale", "sold", "revenue", "income", "earned", "earn", "turnover")) {
+            match(request, QueryIntent.SALES_TOTAL_BY_DATE_RANGE, GOOD);
+        } else {
+            return request;
+        }
+        range.putEntities(request.getEntities());
+        return request;
+    }
+
+    private static IntentRequest match(IntentRequest request, QueryIntent intent, double confidence) {
+        request.setIntent(intent);
+        request.setConfidence(confidence);
+        return request;
+    }
+
+    private static IntentRequest match(IntentRequest request, QueryIntent intent, double confidence,
+                                       String entityKey, Object entityValue) {
+        request.addEntity(entityKey, entityValue);
+        return match(request, intent, confidence);
+    }
+
+    /**
+     * Pick up "top 5" / "last 20" style limits
+     */
+    private static IntentRequest withLimit(IntentRequest request, String paddedQuery) {
+        Matcher limit = LIMIT_PATTERN.matcher(paddedQuery);
+        if (limit.find()) {
+            request.addEntity("limit", Integer.parseInt(limit.group(1)));
+        }
+        return request;
+    }
+
+    /**
+     * Whole-word/phrase check against the space-padded normalized query
+     */
+    private static boolean has(String paddedQuery, String... phrases) {
+        for (String phrase : phrases) {
+            if (paddedQuery.contains(" " + phrase + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String paddedQuery, Set<String> phrases) {
+        return has(paddedQuery, phrases.toArray(String[]::new));
+    }
+}
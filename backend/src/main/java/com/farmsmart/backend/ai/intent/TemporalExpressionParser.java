@@ -0,0 +1,382 @@
+package com.farmsmart.backend.ai.intent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the date range a query talks about, without the LLM.
+ *
+ * Understood: explicit dates (yyyy-MM-dd, one or two, optionally "BS"),
+ * today/yesterday, this/last week, month and year, last N days/weeks/months,
+ * Gregorian months ("in March", "March 2025"), BS months ("Kartik", "Kartik
+ * 2081") and this/last fiscal year (which starts on Shrawan 1). "since ..."
+ * extends a range to today. Weeks start on Sunday. A query with more than one
+ * expression ("sales last week and payments this month") has no single range
+ * and is left to the LLM.
+ *
+ * A year from the first in the BikramSambatCalendar table (2075) on is read as
+ * BS even without the marker: the farm's records have no Gregorian dates that
+ * far ahead, and users write BS dates far more often. Past the end of the table
+ * such a date is unknown rather than misread as Gregorian, and BS months and
+ * fiscal years stop resolving once today is past it; both are logged.
+ *
+ * Ranges are inclusive calendar days; QueryPlanner turns them into timestamp
+ * bounds.
+ */
+@Component
+public class TemporalExpressionParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemporalExpressionParser.class);
+
+    // Warn this long before the BS table runs out
+    private static final int TABLE_END_WARNING_DAYS = 90;
+
+    /**
+     * Inclusive range of calendar days
+     */
+    public record DateRange(LocalDate from, LocalDate to) {
+
+        public DateRange {
+            if (to.isBefore(from)) {
+                LocalDate swap = from;
+                from = to;
+                to = swap;
+            }
+        }
+
+        /**
+         * As the dateFrom/dateTo entities of the date-range templates
+         */
+        public void putEntities(Map<String, Object> entities) {
+            entities.put("dateFrom", from.toString());
+            entities.put("dateTo", to.toString());
+        }
+    }
+
+    private static final String BS_MARKER = "(\\s*b\\.?\\s?s\\b\\.?)?";
+
+    private static final Pattern DATE = Pattern.compile("\\b(\\d{4})[-/.](\\d{1,2})[-/.](\\d{1,2})\\b" + BS_MARKER);
+    private static final Pattern ENTITY_DATE = Pattern.compile("^(\\d{4})[-/.](\\d{1,2})[-/.](\\d{1,2})(?:$|[t ].*)");
+    private static final Pattern FISCAL_YEAR = Pattern.compile("\\b(this|current|last|previous)\\s+(?:fiscal year|fy)\\b");
+    private static final Pattern LAST_N = Pattern.compile("\\b(?:last|past|previous)\\s+(\\d{1,3})\\s+(day|week|month|year)s?\\b");
+    private static final Pattern THIS_OR_LAST = Pattern.compile("\\b(this|current|last|previous)\\s+(week|month|year)\\b");
+    private static final Pattern DAY_WORD = Pattern.compile("\\b(day before yesterday|yesterday|today)\\b");
+    private static final Pattern SINCE = Pattern.compile("\\bsince\\s+$");
+
+    // Several spellings each, month 1 (Baisakh) to 12 (Chaitra)
+    private static final String[][] BS_MONTHS = {
+            {"baisakh", "baishakh", "vaisakh"},
+            {"jestha", "jeth"},
+            {"asar", "ashadh", "asadh"},
+            {"shrawan", "saun", "sawan"},
+            {"bhadra", "bhadau"},
+            {"asoj", "ashwin", "aswin"},
+            {"kartik", "kattik"},
+            {"mangsir", "mangshir"},
+            {"poush", "paush"},
+            {"magh"},
+            {"falgun", "fagun", "phalgun"},
+            {"chaitra", "chait"}};
+    private static final Pattern BS_MONTH = Pattern.compile("\\b(" + alternatives(BS_MONTHS) + ")(?:\\s+(\\d{4}))?\\b");
+
+    // "may" and "march" are also verbs: a Gregorian month needs a preposition or a year
+    private static final String[] AD_MONTHS = {"january", "february", "march", "april", "may", "june",
+            "july", "august", "september", "october", "november", "december"};
+    private static final Pattern AD_MONTH = Pattern.compile(
+            "\\b(?:(?:in|during|for|of|since)\\s+(" + String.join("|", AD_MONTHS) + ")(?:\\s+(\\d{4}))?"
+                    + "|(" + String.join("|", AD_MONTHS) + ")\\s+(\\d{4}))\\b");
+
+    private static final List<Pattern> EXPRESSIONS = List.of(FISCAL_YEAR, LAST_N, BS_MONTH, AD_MONTH, THIS_OR_LAST, DAY_WORD);
+
+    private static final int SHRAWAN = 4;
+
+    private final BikramSambatCalendar calendar;
+    private final ZoneId zone;
+    private volatile LocalDate uncoveredWarnedOn;
+
+    public TemporalExpressionParser(ResourceLoader resourceLoader,
+                                    @Value("${app.ai.dates.bs-calendar:classpath:ai/bikram-sambat.txt}") String calendarLocation,
+                                    @Value("${app.ai.dates.zone:}") String zone) throws IOException {
+        try (InputStream in = resourceLoader.getResource(calendarLocation).getInputStream()) {
+            this.calendar = BikramSambatCalendar.load(in);
+        }
+        this.zone = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+
+        LocalDate today = today();
+        if (calendar.fromGregorian(today) == null) {
+            logger.error("BS calendar {} does not cover today ({}, table ends {}); BS months and fiscal years "
+                    + "will not resolve until the next year is appended", calendarLocation, today, calendar.lastDay());
+        } else if (calendar.lastDay().isBefore(today.plusDays(TABLE_END_WARNING_DAYS))) {
+            logger.warn("BS calendar {} ends {}; append the next year", calendarLocation, calendar.lastDay());
+        }
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    public BikramSambatCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * The range the query refers to, if it has exactly one recognisable date expression
+     */
+    public Optional<DateRange> parse(String query) {
+        return parse(query, today());
+    }
+
+    public Optional<DateRange> parse(String query, LocalDate today) {
+        if (query == null || query.isBlank()) {
+            return Optional.empty();
+        }
+        String q = query.toLowerCase(Locale.ROOT);
+        if (countExpressions(q) != 1) {
+            return Optional.empty();
+        }
+
+        // Explicit dates: one is a single day (or "since" it), two are the bounds
+        Matcher date = DATE.matcher(q);
+        List<LocalDate> dates = new ArrayList<>();
+        int firstDateAt = -1;
+        while (date.find() && dates.size() < 2) {
+            LocalDate parsed = toDate(date.group(1), date.group(2), date.group(3), date.group(4) != null);
+            if (parsed == null) {
+                return Optional.empty();
+            }
+            if (dates.isEmpty()) {
+                firstDateAt = date.start();
+            }
+            dates.add(parsed);
+        }
+        if (dates.size() == 2) {
+            return Optional.of(new DateRange(dates.get(0), dates.get(1)));
+        }
+        if (dates.size() == 1) {
+            return Optional.of(since(q, firstDateAt, new DateRange(dates.get(0), dates.get(0)), today));
+        }
+
+        Matcher fiscal = FISCAL_YEAR.matcher(q);
+        if (fiscal.find()) {
+            return fiscalYear(isLast(fiscal.group(1)), today).map(range -> since(q, fiscal.start(), range, today));
+        }
+
+        Matcher lastN = LAST_N.matcher(q);
+        if (lastN.find()) {
+            int n = Integer.parseInt(lastN.group(1));
+            LocalDate from = switch (lastN.group(2)) {
+                case "day" -> today.minusDays(n);
+                case "week" -> today.minusWeeks(n);
+                case "month" -> today.minusMonths(n);
+                default -> today.minusYears(n);
+            };
+            return Optional.of(new DateRange(from.plusDays(1), today));
+        }
+
+        Matcher bsMonth = BS_MONTH.matcher(q);
+        if (bsMonth.find()) {
+            return bsMonth(monthIndex(BS_MONTHS, bsMonth.group(1)), bsMonth.group(2), today)
+                    .map(range -> since(q, bsMonth.start(), range, today));
+        }
+
+        Matcher adMonth = AD_MONTH.matcher(q);
+        if (adMonth.find()) {
+            boolean named = adMonth.group(1) != null;
+            int month = List.of(AD_MONTHS).indexOf(named ? adMonth.group(1) : adMonth.group(3)) + 1;
+            String year = named ? adMonth.group(2) : adMonth.group(4);
+            LocalDate first = LocalDate.of(today.getYear(), month, 1);
+            if (year != null) {
+                first = first.withYear(Integer.parseInt(year));
+            } else if (first.isAfter(today)) {
+                first = first.minusYears(1);
+            }
+            DateRange range = new DateRange(first, first.with(TemporalAdjusters.lastDayOfMonth()));
+            return Optional.of(q.startsWith("since", adMonth.start()) ? new DateRange(first, today) : range);
+        }
+
+        Matcher thisOrLast = THIS_OR_LAST.matcher(q);
+        if (thisOrLast.find()) {
+            boolean last = isLast(thisOrLast.group(1));
+            LocalDate start = switch (thisOrLast.group(2)) {
+                case "week" -> today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+                case "month" -> today.withDayOfMonth(1);
+                default -> today.withDayOfYear(1);
+            };
+            if (!last) {
+                return Optional.of(new DateRange(start, today));
+            }
+            LocalDate previous = switch (thisOrLast.group(2)) {
+                case "week" -> start.minusWeeks(1);
+                case "month" -> start.minusMonths(1);
+                default -> start.minusYears(1);
+            };
+            return Optional.of(since(q, thisOrLast.start(), new DateRange(previous, start.minusDays(1)), today));
+        }
+
+        Matcher dayWord = DAY_WORD.matcher(q);
+        if (dayWord.find()) {
+            LocalDate day = switch (dayWord.group(1)) {
+                case "today" -> today;
+                case "yesterday" -> today.minusDays(1);
+                default -> today.minusDays(2);
+            };
+            return Optional.of(since(q, dayWord.start(), new DateRange(day, day), today));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the query has any date expression parse() knows, resolvable or not
+     */
+    public boolean hasExpression(String query) {
+        return query != null && countExpressions(query.toLowerCase(Locale.ROOT)) > 0;
+    }
+
+    /**
+     * A dateFrom/dateTo entity as a date: LocalDate, or yyyy-MM-dd (AD or BS) with an optional time part
+     */
+    public LocalDate parseDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim().toLowerCase(Locale.ROOT);
+        boolean bs = text.endsWith("bs") || text.endsWith("b.s.");
+        Matcher matcher = ENTITY_DATE.matcher(bs ? text.substring(0, text.lastIndexOf('b')).trim() : text);
+        return matcher.matches() ? toDate(matcher.group(1), matcher.group(2), matcher.group(3), bs) : null;
+    }
+
+    private LocalDate toDate(String year, String month, String day, boolean bs) {
+        int y = Integer.parseInt(year);
+        int m = Integer.parseInt(month);
+        int d = Integer.parseInt(day);
+        if (bs || y >= calendar.firstYear()) {
+            return calendar.toGregorian(y, m, d);
+        }
+        try {
+            return LocalDate.of(y, m, d);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private Optional<DateRange> bsMonth(int month, String year, LocalDate today) {
+        BikramSambatCalendar.BsDate now = bsToday(today);
+        int bsYear;
+        if (year != null) {
+            bsYear = Integer.parseInt(year);
+        } else if (now != null) {
+            // Most recent one: Chaitra asked in Baisakh is last year's
+            bsYear = month > now.month() ? now.year() - 1 : now.year();
+        } else {
+            return Optional.empty();
+        }
+        LocalDate first = calendar.toGregorian(bsYear, month, 1);
+        if (first == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new DateRange(first, first.plusDays(calendar.monthLength(bsYear, month) - 1)));
+    }
+
+    private Optional<DateRange> fiscalYear(boolean last, LocalDate today) {
+        BikramSambatCalendar.BsDate now = bsToday(today);
+        if (now == null) {
+            return Optional.empty();
+        }
+        int startYear = (now.month() >= SHRAWAN ? now.year() : now.year() - 1) - (last ? 1 : 0);
+        LocalDate start = calendar.toGregorian(startYear, SHRAWAN, 1);
+        LocalDate nextStart = calendar.toGregorian(startYear + 1, SHRAWAN, 1);
+        if (start == null || (last && nextStart == null)) {
+            return Optional.empty();
+        }
+        return Optional.of(new DateRange(start, last ? nextStart.minusDays(1) : today));
+    }
+
+    /**
+     * Today in BS, or null (logged once a day) when the table does not cover it
+     */
+    private BikramSambatCalendar.BsDate bsToday(LocalDate today) {
+        BikramSambatCalendar.BsDate now = calendar.fromGregorian(today);
+        if (now == null && !today.equals(uncoveredWarnedOn)) {
+            uncoveredWarnedOn = today;
+            logger.error("BS calendar ends {}, cannot resolve BS dates relative to {}", calendar.lastDay(), today);
+        }
+        return now;
+    }
+
+    /**
+     * "since <expression>" runs from the start of the expression's range to today
+     */
+    private static DateRange since(String query, int expressionStart, DateRange range, LocalDate today) {
+        boolean since = SINCE.matcher(query.substring(0, expressionStart)).find();
+        return since && range.from().isBefore(today) ? new DateRange(range.from(), today) : range;
+    }
+
+    /**
+     * Non-overlapping date expressions in the lower-cased query; one or two
+     * explicit dates count as one, since two are the bounds of a range
+     */
+    private static int countExpressions(String q) {
+        List<int[]> spans = new ArrayList<>();
+        int dates = 0;
+        Matcher date = DATE.matcher(q);
+        while (date.find()) {
+            dates++;
+            spans.add(new int[]{date.start(), date.end()});
+        }
+        int count = dates <= 2 ? Math.min(dates, 1) : dates;
+        for (Pattern pattern : EXPRESSIONS) {
+            Matcher matcher = pattern.matcher(q);
+            while (matcher.find()) {
+                int start = matcher.start();
+                int end = matcher.end();
+                if (spans.stream().noneMatch(span -> start < span[1] && span[0] < end)) {
+                    spans.add(new int[]{start, end});
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean isLast(String word) {
+        return word.equals("last") || word.equals("previous");
+    }
+
+    private static int monthIndex(String[][] months, String name) {
+        for (int i = 0; i < months.length; i++) {
+            if (List.of(months[i]).contains(name)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unknown month " + name);
+    }
+
+    private static String alternatives(String[][] months) {
+        List<String> names = new ArrayList<>();
+        for (String[] spellings : months) {
+            names.addAll(List.of(spellings));
+        }
+        return String.join("|", names);
+    }
+}
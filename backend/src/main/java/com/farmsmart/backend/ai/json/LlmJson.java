@@ -0,0 +1,48 @@
+package com.farmsmart.backend.ai.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Reads JSON answers of schema-constrained model calls.
+ *
+ * With a response schema Gemini returns bare JSON, but a model that ignores it
+ * may still wrap the object in a markdown fence or a sentence. Instead of
+ * trimming and substring-ing the text, the parser starts at the first '{' and
+ * stops after the root object; whatever follows (a closing fence) is never read.
+ */
+public final class LlmJson {
+
+    private LlmJson() {
+    }
+
+    /**
+     * JSON response format constrained to the given root object
+     */
+    public static ResponseFormat responseFormat(String name, JsonObjectSchema root) {
+        return ResponseFormat.builder()
+                .type(ResponseFormatType.JSON)
+                .jsonSchema(JsonSchema.builder().name(name).rootElement(root).build())
+                .build();
+    }
+
+    /**
+     * Parse the first JSON object in text with a shared, preconfigured reader
+     */
+    public static <T> T read(ObjectReader reader, String text) throws IOException {
+        int start = text == null ? -1 : text.indexOf('{');
+        if (start < 0) {
+            throw new JsonParseException(null, "No JSON object in model response");
+        }
+        StringReader source = new StringReader(text);
+        source.skip(start);
+        return reader.readValue(source);
+    }
+}
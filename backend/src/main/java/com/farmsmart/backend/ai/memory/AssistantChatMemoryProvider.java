@@ -0,0 +1,76 @@
+package com.farmsmart.backend.ai.memory;
+
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * One chat memory per user and conversation, so concurrent users neither see
+ * each other's history nor queue on a single shared memory.
+ *
+ * Memory ids are "userId:conversationId". The memories themselves are thin
+ * windows over AssistantChatMemoryStore, which holds the messages and evicts
+ * idle conversations.
+ */
+@Component
+public class AssistantChatMemoryProvider implements ChatMemoryProvider {
+
+    public static final String DEFAULT_CONVERSATION = "default";
+
+    private static final Pattern CONVERSATION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final AssistantChatMemoryStore store;
+    private final int maxMessages;
+
+    public AssistantChatMemoryProvider(AssistantChatMemoryStore store,
+                                       @Value("${app.ai.chat-memory.max-messages:10}") int maxMessages) {
+        this.store = store;
+        this.maxMessages = maxMessages;
+    }
+
+    @Override
+    public ChatMemory get(Object memoryId) {
+        return MessageWindowChatMemory.builder()
+                .id(memoryId)
+                .maxMessages(maxMessages)
+                .chatMemoryStore(store)
+                .build();
+    }
+
+    /**
+     * Memory id for a user's conversation. Missing or malformed conversation ids
+     * fall back to the user's default conversation.
+     */
+    public static String memoryId(UUID userId, String conversationId) {
+        String conversation = conversationId != null && CONVERSATION_ID.matcher(conversationId).matches()
+                ? conversationId
+                : DEFAULT_CONVERSATION;
+        return (userId != null ? userId.toString() : "anonymous") + ":" + conversation;
+    }
+
+    /**
+     * The user a memory id belongs to, or null for anonymous and one-shot memories.
+     * Lets code running off the request thread (no SecurityContext) know who asked.
+     */
+    public static UUID userId(Object memoryId) {
+        if (memoryId == null) {
+            return null;
+        }
+        String id = memoryId.toString();
+        int sep = id.indexOf(':');
+        try {
+            return sep > 0 ? UUID.fromString(id.substring(0, sep)) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public void clear(String memoryId) {
+        store.deleteMessages(memoryId);
+    }
+}
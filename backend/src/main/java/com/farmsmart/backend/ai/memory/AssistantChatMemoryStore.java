@@ -0,0 +1,99 @@
+package com.farmsmart.backend.ai.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Message store behind every assistant conversation.
+ *
+ * Conversations live in a bounded Caffeine cache and are dropped after
+ * app.ai.chat-memory.idle-timeout without use, or least-recently-used first
+ * once app.ai.chat-memory.max-conversations is reached.
+ *
+ * With app.ai.chat-memory.persistent=true every update is also written to
+ * assistant_chat_memory, and an evicted conversation is reloaded from there on
+ * its next message, so history survives eviction and restarts.
+ */
+@Component
+public class AssistantChatMemoryStore implements ChatMemoryStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean persistent;
+    private final Cache<Object, List<ChatMessage>> conversations;
+
+    public AssistantChatMemoryStore(JdbcTemplate jdbcTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.ai.chat-memory.idle-timeout:30m}") Duration idleTimeout,
+                                    @Value("${app.ai.chat-memory.max-conversations:5000}") long maxConversations,
+                                    @Value("${app.ai.chat-memory.persistent:false}") boolean persistent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistent = persistent;
+        this.conversations = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxConversations)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, conversations, "assistantChatMemory");
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return conversations.get(memoryId, this::load);
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        List<ChatMessage> snapshot = List.copyOf(messages);
+        conversations.put(memoryId, snapshot);
+        if (persistent) {
+            try {
+                jdbcTemplate.update("""
+                    INSERT INTO assistant_chat_memory (memory_id, messages, updated_at)
+                    VALUES (?, ?, now())
+                    ON CONFLICT (memory_id) DO UPDATE SET messages = EXCLUDED.messages, updated_at = now()
+                """, memoryId.toString(), ChatMessageSerializer.messagesToJson(snapshot));
+            } catch (Exception e) {
+                // The in-memory copy is still current; only restart/eviction survival is lost
+                System.err.println("⚠️ AssistantChatMemoryStore: Could not persist " + memoryId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        conversations.invalidate(memoryId);
+        if (persistent) {
+            jdbcTemplate.update("DELETE FROM assistant_chat_memory WHERE memory_id = ?", memoryId.toString());
+        }
+    }
+
+    public long activeConversations() {
+        return conversations.estimatedSize();
+    }
+
+    private List<ChatMessage> load(Object memoryId) {
+        if (!persistent) {
+            return List.of();
+        }
+        try {
+            List<String> rows = jdbcTemplate.queryForList(
+                    "SELECT messages FROM assistant_chat_memory WHERE memory_id = ?", String.class, memoryId.toString());
+            return rows.isEmpty() ? List.of() : List.copyOf(ChatMessageDeserializer.messagesFromJson(rows.get(0)));
+        } catch (Exception e) {
+            System.err.println("⚠️ AssistantChatMemoryStore: Could not load " + memoryId + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.farmsmart.backend.ai.observation;
+
+import com.farmsmart.backend.ai.intent.IntentRequest;
+import com.farmsmart.backend.ai.intent.QueryIntent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Observations of the assistant pipeline, one per stage of a chat turn:
+ *
+ *   assistant.chat                      whole blocking chat turn (root)
+ *   assistant.stage{stage, intent}      classify, template, sql, format
+ *   assistant.llm{model}                every model call (ModelGuard), so the
+ *                                       agent's own generation turns show up
+ *                                       next to the classifier's call
+ *
+ * Observations nest through the current-observation scope, so each chat turn
+ * is one tree. Spring Boot turns them into timers (and into spans once a
+ * micrometer-tracing bridge is on the classpath); AssistantTraceRecorder keeps
+ * the most recent trees for /actuator/assistanttraces.
+ */
+@Component
+public class AssistantObservations {
+
+    public static final String CHAT = "assistant.chat";
+    public static final String STAGE = "assistant.stage";
+    public static final String LLM = "assistant.llm";
+
+    public enum Stage { CLASSIFY, TEMPLATE, SQL, FORMAT }
+
+    private final ObservationRegistry registry;
+
+    public AssistantObservations(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T chat(Supplier<T> turn) {
+        return Observation.createNotStarted(CHAT, registry).observe(turn);
+    }
+
+    public <T> T stage(Stage stage, QueryIntent intent, Supplier<T> work) {
+        return stage(stage, intent != null ? intent.name() : "none").observe(work);
+    }
+
+    public <T> T stage(Stage stage, List<IntentRequest> requests, Supplier<T> work) {
+        return stage(stage, intentTag(requests)).observe(work);
+    }
+
+    /**
+     * Not yet started, for stages whose intent is only known at the end (classify)
+     */
+    public Observation stage(Stage stage, String intentTag) {
+        return Observation.createNotStarted(STAGE, registry)
+                .lowCardinalityKeyValue("stage", stage.name().toLowerCase())
+                .lowCardinalityKeyValue("intent", intentTag);
+    }
+
+    /**
+     * The intent's name, or COMPOSITE when a question was split into several
+     */
+    public static String intentTag(List<IntentRequest> requests) {
+        return requests.size() == 1 ? String.valueOf(requests.get(0).getIntent()) : "COMPOSITE";
+    }
+
+    /**
+     * Run work on another thread as a child of the caller's current observation
+     */
+    public <T> Supplier<T> propagate(Supplier<T> work) {
+        Observation parent = registry.getCurrentObservation();
+        return parent == null ? work : () -> parent.scoped(work);
+    }
+
+    public ObservationRegistry getRegistry() {
+        return registry;
+    }
+}
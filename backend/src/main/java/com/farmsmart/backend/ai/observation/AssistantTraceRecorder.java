@@ -0,0 +1,147 @@
+package com.farmsmart.backend.ai.observation;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the last app.ai.tracing.recent assistant observation trees in memory,
+ * so the stage breakdown of a slow chat turn can be read locally without a
+ * tracing backend (AssistantTracesEndpoint).
+ *
+ * Turns slower than app.ai.tracing.slow-threshold are also logged with their
+ * time per stage.
+ */
+@Component
+public class AssistantTraceRecorder implements ObservationHandler<Observation.Context> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssistantTraceRecorder.class);
+
+    /**
+     * One finished observation; offsets are relative to the root's start
+     */
+    public record Span(String name, Map<String, String> tags, double offsetMs, double durationMs,
+                       String error, List<Span> children) {}
+
+    private static final class Node {
+        final long startNanos = System.nanoTime();
+        final Node root;
+        final ConcurrentLinkedQueue<Node> children = new ConcurrentLinkedQueue<>();
+        volatile Observation.Context context;
+        volatile long durationNanos;
+
+        Node(Node parent) {
+            this.root = parent == null ? this : parent.root;
+        }
+    }
+
+    private final int capacity;
+    private final Duration slowThreshold;
+    private final Deque<Span> recent = new ArrayDeque<>();
+
+    public AssistantTraceRecorder(@Value("${app.ai.tracing.recent:50}") int capacity,
+                                  @Value("${app.ai.tracing.slow-threshold:5s}") Duration slowThreshold) {
+        this.capacity = capacity;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context.getName() != null && context.getName().startsWith("assistant.");
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        Node parent = null;
+        if (context.getParentObservation() != null) {
+            parent = context.getParentObservation().getContextView().get(Node.class);
+        }
+        Node node = new Node(parent);
+        node.context = context;
+        context.put(Node.class, node);
+        if (parent != null) {
+            parent.children.add(node);
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Node node = context.get(Node.class);
+        if (node == null) {
+            return;
+        }
+        node.durationNanos = System.nanoTime() - node.startNanos;
+        if (node.root != node) {
+            return;
+        }
+        Span trace = toSpan(node, node.startNanos);
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeLast();
+            }
+            recent.addFirst(trace);
+        }
+        if (node.durationNanos >= slowThreshold.toNanos()) {
+            logger.warn("Slow assistant turn: {} ms total, {}", Math.round(trace.durationMs()), breakdown(trace));
+        }
+    }
+
+    /**
+     * Most recent first
+     */
+    public List<Span> getRecent() {
+        synchronized (recent) {
+            return List.copyOf(recent);
+        }
+    }
+
+    private static Span toSpan(Node node, long rootStart) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (KeyValue keyValue : node.context.getLowCardinalityKeyValues()) {
+            tags.put(keyValue.getKey(), keyValue.getValue());
+        }
+        List<Span> children = new ArrayList<>();
+        for (Node child : node.children) {
+            children.add(toSpan(child, rootStart));
+        }
+        Throwable error = node.context.getError();
+        return new Span(node.context.getName(), tags,
+                (node.startNanos - rootStart) / 1e6, node.durationNanos / 1e6,
+                error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null,
+                children);
+    }
+
+    /**
+     * Total time per stage (or model) over the whole tree, e.g. "classify=1200ms, llm:chat=6800ms"
+     */
+    private static String breakdown(Span root) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        addTotals(root, totals);
+        List<String> parts = new ArrayList<>();
+        totals.forEach((label, ms) -> parts.add(label + "=" + Math.round(ms) + "ms"));
+        return String.join(", ", parts);
+    }
+
+    private static void addTotals(Span span, Map<String, Double> totals) {
+        for (Span child : span.children()) {
+            String label = child.tags().containsKey("stage") ? child.tags().get("stage")
+                    : child.tags().containsKey("model") ? "llm:" + child.tags().get("model")
+                    : child.name();
+            totals.merge(label, child.durationMs(), Double::sum);
+            addTotals(child, totals);
+        }
+    }
+}
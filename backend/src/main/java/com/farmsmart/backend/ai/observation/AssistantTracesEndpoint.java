@@ -0,0 +1,26 @@
+package com.farmsmart.backend.ai.observation;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/assistanttraces: the most recent assistant turns as span trees
+ */
+@Component
+@Endpoint(id = "assistanttraces")
+public class AssistantTracesEndpoint {
+
+    private final AssistantTraceRecorder recorder;
+
+    public AssistantTracesEndpoint(AssistantTraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<AssistantTraceRecorder.Span> traces() {
+        return recorder.getRecent();
+    }
+}
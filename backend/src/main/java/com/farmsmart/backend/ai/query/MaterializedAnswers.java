@@ -0,0 +1,143 @@
+package com.farmsmart.backend.ai.query;
+
+import com.farmsmart.backend.ai.intent.QueryIntent;
+import com.farmsmart.backend.service.MaterializedMetricsService;
+import com.farmsmart.backend.service.MaterializedMetricsService.CreditSummary;
+import com.farmsmart.backend.service.MaterializedMetricsService.PaymentDay;
+import com.farmsmart.backend.service.MaterializedMetricsService.PaymentWindow;
+import com.farmsmart.backend.service.MaterializedMetricsService.RecentSale;
+import com.farmsmart.backend.service.MaterializedMetricsService.RecentSales;
+import com.farmsmart.backend.service.MaterializedMetricsService.Snapshot;
+import com.farmsmart.backend.service.MaterializedMetricsService.StockLevel;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers the intents that MaterializedMetricsService already keeps in memory,
+ * with the same columns and row order as their SQL templates.
+ *
+ * Empty when the view is stale or cannot answer the parameters (a limit
+ * beyond the recent sales it holds, a date range before its payment window);
+ * QueryPlanner then runs the template.
+ */
+@Component
+public class MaterializedAnswers {
+
+    private final MaterializedMetricsService metrics;
+
+    public MaterializedAnswers(MaterializedMetricsService metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * params as bound by QueryPlanner: limit/threshold defaulted, dates as Timestamps
+     */
+    public Optional<QueryResult> answer(QueryIntent intent, Map<String, Object> params) {
+        try {
+            return view(intent, params);
+        } catch (NumberFormatException e) {
+            // Let the template report the bad parameter
+            return Optional.empty();
+        }
+    }
+
+    private Optional<QueryResult> view(QueryIntent intent, Map<String, Object> params) {
+        return switch (intent) {
+            case CREDIT_SUMMARY -> metrics.creditSummary().map(this::creditSummary);
+            case INVENTORY_LOW_STOCK -> metrics.stockLevels()
+                    .map(s -> lowStock(s, intParam(params, "threshold"), intParam(params, "limit")));
+            case SALES_RECENT -> metrics.recentSales()
+                    .flatMap(s -> recentSales(s, intParam(params, "limit")));
+            case PAYMENT_SUMMARY_BY_METHOD -> metrics.paymentWindow()
+                    .flatMap(s -> paymentSummary(s, (Timestamp) params.get("dateFrom"), (Timestamp) params.get("dateTo")));
+            default -> Optional.empty();
+        };
+    }
+
+    private QueryResult creditSummary(Snapshot<CreditSummary> snapshot) {
+        CreditSummary c = snapshot.value();
+        return result(QueryIntent.CREDIT_SUMMARY, snapshot,
+                List.of("customers_with_credit", "total_active_credits", "total_outstanding", "overdue_amount", "not_yet_due"),
+                List.of(new QueryRow(new Object[]{
+                        c.customersWithCredit(), c.activeCredits(), c.outstanding(), c.overdue(), c.notYetDue()})));
+    }
+
+    private QueryResult lowStock(Snapshot<List<StockLevel>> snapshot, int threshold, int limit) {
+        List<QueryRow> rows = new ArrayList<>();
+        for (StockLevel level : snapshot.value()) {
+            if (level.currentStock() >= threshold || rows.size() == limit) {
+                break;
+            }
+            rows.add(new QueryRow(new Object[]{level.name(), level.currentStock(), level.unit(), level.category()}));
+        }
+        return result(QueryIntent.INVENTORY_LOW_STOCK, snapshot,
+                List.of("name", "current_stock", "unit", "category"), rows);
+    }
+
+    private Optional<QueryResult> recentSales(Snapshot<RecentSales> snapshot, int limit) {
+        List<RecentSale> sales = snapshot.value().sales();
+        if (limit > sales.size() && !snapshot.value().complete()) {
+            return Optional.empty();
+        }
+        List<QueryRow> rows = new ArrayList<>();
+        for (RecentSale sale : sales.subList(0, Math.min(limit, sales.size()))) {
+            rows.add(new QueryRow(new Object[]{sale.id(), sale.customerName(), sale.totalBillAmount(),
+                    sale.paymentStatus(), sale.saleChannel(),
+                    sale.createdAt() != null ? Timestamp.valueOf(sale.createdAt()) : null}));
+        }
+        return Optional.of(result(QueryIntent.SALES_RECENT, snapshot,
+                List.of("id", "customer_name", "total_bill_amount", "payment_status", "sale_channel", "created_at"), rows));
+    }
+
+    /**
+     * Same bounds as the template: from the first day, before the day after the last
+     */
+    private Optional<QueryResult> paymentSummary(Snapshot<PaymentWindow> snapshot, Timestamp dateFrom, Timestamp dateTo) {
+        if (dateFrom == null || dateTo == null) {
+            return Optional.empty();
+        }
+        LocalDate from = dateFrom.toLocalDateTime().toLocalDate();
+        LocalDate toExclusive = dateTo.toLocalDateTime().toLocalDate();
+        if (from.isBefore(snapshot.value().from())) {
+            return Optional.empty();
+        }
+        Map<String, long[]> counts = new LinkedHashMap<>();
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        for (PaymentDay day : snapshot.value().days()) {
+            if (day.day().isBefore(from) || !day.day().isBefore(toExclusive)) {
+                continue;
+            }
+            counts.computeIfAbsent(day.method(), m -> new long[1])[0] += day.count();
+            amounts.merge(day.method(), day.amount(), BigDecimal::add);
+        }
+        List<QueryRow> rows = new ArrayList<>();
+        amounts.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue(Comparator.reverseOrder()))
+                .forEach(e -> rows.add(new QueryRow(new Object[]{e.getKey(), counts.get(e.getKey())[0], e.getValue()})));
+        return Optional.of(result(QueryIntent.PAYMENT_SUMMARY_BY_METHOD, snapshot,
+                List.of("payment_method", "transaction_count", "total_amount"), rows));
+    }
+
+    private static QueryResult result(QueryIntent intent, Snapshot<?> snapshot, List<String> columns, List<QueryRow> rows) {
+        return QueryResult.builder()
+                .intent(intent)
+                .columns(columns)
+                .rows(rows)
+                .freshAsOf(snapshot.asOf())
+                .build();
+    }
+
+    private static int intParam(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value instanceof Number n ? n.intValue() : Integer.parseInt(value.toString().trim());
+    }
+}
@@ -0,0 +1,203 @@
+package com.farmsmart.backend.ai.query;
+
+import com.farmsmart.backend.ai.intent.IntentRequest;
+import com.farmsmart.backend.ai.intent.QueryIntent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous audit trail of assistant queries, in assistant_query_audit.
+ *
+ * QueryPlanner hands every executed intent to record(), which only offers it
+ * to a bounded queue and never blocks: when the queue is full (the database
+ * is slow or down) the entry is dropped and counted instead of delaying the
+ * chat. A daemon thread drains the queue in JDBC batches of up to
+ * app.ai.audit.batch-size, waiting at most app.ai.audit.flush-interval for a
+ * batch to fill. A failed batch is dropped and counted as well, then the
+ * writer backs off before the next one.
+ *
+ * Rows carry the id of the user who asked (captured on the request thread,
+ * null when unknown); a request that failed before classification is stored
+ * with intent UNKNOWN.
+ *
+ * Metrics: assistant.audit.written, assistant.audit.dropped{reason=queue-full|write-failed},
+ * assistant.audit.queue (entries waiting) and assistant.audit.batch (insert latency).
+ */
+@Component
+public class QueryAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryAuditWriter.class);
+
+    /**
+     * Where the rows came from
+     */
+    public enum Source { MEMORY, CACHE, SQL }
+
+    private record AuditEntry(LocalDateTime executedAt, UUID userId, QueryIntent intent, Source source, String originalQuery,
+                              Map<String, Object> entities, String executedSql, int rowCount, long durationMicros,
+                              String error) {}
+
+    private static final String INSERT_SQL = """
+            INSERT INTO assistant_query_audit
+                (executed_at, user_id, intent, source, original_query, parameters, executed_sql, row_count,
+                 duration_us, error)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final BlockingQueue<AuditEntry> queue;
+    private final Counter written;
+    private final Counter droppedQueueFull;
+    private final Counter droppedWriteFailed;
+    private final Timer batchTimer;
+
+    private volatile boolean running;
+    private Thread drainThread;
+
+    public QueryAuditWriter(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.ai.audit.enabled:true}") boolean enabled,
+                            @Value("${app.ai.audit.queue-size:10000}") int queueSize,
+                            @Value("${app.ai.audit.batch-size:200}") int batchSize,
+                            @Value("${app.ai.audit.flush-interval:1s}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.written = Counter.builder("assistant.audit.written")
+                .description("Assistant query audit rows inserted")
+                .register(meterRegistry);
+        this.droppedQueueFull = Counter.builder("assistant.audit.dropped")
+                .description("Assistant query audit rows not written")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.droppedWriteFailed = Counter.builder("assistant.audit.dropped")
+                .description("Assistant query audit rows not written")
+                .tag("reason", "write-failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("assistant.audit.batch")
+                .description("Batch insert into assistant_query_audit")
+                .register(meterRegistry);
+        meterRegistry.gauge("assistant.audit.queue", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        drainThread = Thread.ofPlatform().name("assistant-audit-writer").daemon().start(this::drain);
+    }
+
+    /**
+     * Queue an executed intent; never blocks the caller
+     */
+    public void record(IntentRequest request, UUID userId, Source source, QueryResult result, long durationNanos) {
+        offer(new AuditEntry(LocalDateTime.now(), userId, request.getIntent(), source, request.getOriginalQuery(),
+                copy(request.getEntities()), result.getExecutedSql(), result.getResultCount(),
+                TimeUnit.NANOSECONDS.toMicros(durationNanos), result.getError()));
+    }
+
+    public void recordFailure(IntentRequest request, UUID userId, Throwable error, long durationNanos) {
+        offer(new AuditEntry(LocalDateTime.now(), userId, request.getIntent(), Source.SQL, request.getOriginalQuery(),
+                copy(request.getEntities()), null, 0,
+                TimeUnit.NANOSECONDS.toMicros(durationNanos), String.valueOf(error.getMessage())));
+    }
+
+    private void offer(AuditEntry entry) {
+        if (enabled && !queue.offer(entry)) {
+            droppedQueueFull.increment();
+        }
+    }
+
+    private void drain() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEntry first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!write(batch) && running) {
+                    Thread.sleep(FAILURE_BACKOFF.toMillis());
+                }
+            } catch (InterruptedException e) {
+                // shutdown(): flush what is left, then exit
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean write(List<AuditEntry> batch) {
+        try {
+            batchTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(entry.executedAt()));
+                ps.setObject(2, entry.userId());
+                // intent is NOT NULL; one null would fail the whole batch
+                ps.setString(3, (entry.intent() != null ? entry.intent() : QueryIntent.UNKNOWN).name());
+                ps.setString(4, entry.source().name());
+                ps.setString(5, entry.originalQuery());
+                ps.setString(6, entry.entities().isEmpty() ? null : new TreeMap<>(entry.entities()).toString());
+                ps.setString(7, entry.executedSql());
+                ps.setInt(8, entry.rowCount());
+                ps.setLong(9, entry.durationMicros());
+                ps.setString(10, entry.error());
+            }));
+            written.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            droppedWriteFailed.increment(batch.size());
+            logger.warn("Dropped {} audit rows: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stop waiting for new entries and flush the queue before the datasource closes
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (drainThread == null) {
+            return;
+        }
+        running = false;
+        drainThread.interrupt();
+        drainThread.join(flushInterval.plusSeconds(5).toMillis());
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> entities) {
+        return entities == null || entities.isEmpty() ? Map.of() : new HashMap<>(entities);
+    }
+}
@@ -1,13 +1,40 @@
 package com.farmsmart.backend.ai.query;
 
+import com.farmsmart.backend.ai.intent.EntityDictionary.EntityType;
+import com.farmsmart.backend.ai.intent.EntityResolutionIndex;
 import com.farmsmart.backend.ai.intent.IntentRequest;
 import com.farmsmart.backend.ai.intent.QueryIntent;
+import com.farmsmart.backend.ai.intent.TemporalExpressionParser;
+import com.farmsmart.backend.ai.observation.AssistantObservations;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Service;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Deterministic query execution service.
@@ -15,9 +42,25 @@ import java.util.Map;
  * This service:
  * 1. Receives an IntentRequest from the IntentClassifier
  * 2. Looks up the appropriate SQL template from SqlTemplateRegistry
- * 3. Validates required parameters are present
- * 4. Executes the query using NamedParameterJdbcTemplate
- * 5. Returns structured QueryResult
+ * 3. Validates required parameters are present and resolves customer/product
+ *    names to ids (EntityResolutionIndex), so templates look rows up by key
+ * 4. Answers from memory when the intent is one of the aggregates kept by
+ *    MaterializedMetricsService and its view is fresh (MaterializedAnswers)
+ * 5. Returns a cached result if the same intent + parameters were answered and
+ *    none of the template's tables changed since (QueryResultCache)
+ * 6. Otherwise executes the query using NamedParameterJdbcTemplate, cancelled
+ *    by the database after app.ai.timeout.query
+ * 7. Returns structured QueryResult; freshAsOf tells how current its rows are
+ * 8. Queues an audit row for assistant_query_audit (QueryAuditWriter)
+ * 
+ * executeAll() runs the parts of a composite question (several IntentRequests
+ * from one classification) concurrently on a pool of app.ai.query.parallelism
+ * virtual threads and returns them as one QueryResult with subResults. The pool
+ * is separate from the AssistantExecutor bulkhead, which the calling chat
+ * already holds a permit of.
+ * 
+ * Template lookup and SQL execution are assistant.stage observations
+ * (stage=template|sql, intent); parallel parts stay children of the caller's.
  * 
  * CRITICAL: This is the ONLY place where SQL is executed for AI queries.
  * The LLM never sees or generates SQL - it only provides intent + entities.
@@ -25,28 +68,126 @@ import java.util.Map;
 @Service
 public class QueryPlanner {
     
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanner.class);
+    
+    /**
+     * Reads column labels once, then each row into a single Object[]
+     */
+    private static final ResultSetExtractor<QueryResult> COMPACT_ROWS = rs -> {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int c = 1; c <= columnCount; c++) {
+            columns.add(JdbcUtils.lookupColumnName(meta, c));
+        }
+        List<QueryRow> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object[] values = new Object[columnCount];
+            for (int c = 1; c <= columnCount; c++) {
+                values[c - 1] = JdbcUtils.getResultSetValue(rs, c);
+            }
+            rows.add(new QueryRow(values));
+        }
+        return QueryResult.builder()
+                .columns(List.copyOf(columns))
+                .rows(rows)
+                .build();
+    };
+    
+    // Name entity -> id-list parameter used by the templates
+    private static final Map<EntityType, String> ID_PARAMS = Map.of(
+            EntityType.CUSTOMER, "customerIds",
+            EntityType.PRODUCT, "productIds");
+    
     private final SqlTemplateRegistry templateRegistry;
     private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final QueryResultCache resultCache;
+    private final MaterializedAnswers materializedAnswers;
+    private final QueryAuditWriter auditWriter;
+    private final TemplatePlanGuard planGuard;
+    private final EntityResolutionIndex entityIndex;
+    private final TemporalExpressionParser temporalParser;
+    private final AssistantObservations observations;
+    private final int queryTimeoutSeconds;
+    private final ExecutorService partExecutor;
     
     public QueryPlanner(
             SqlTemplateRegistry templateRegistry,
-            NamedParameterJdbcTemplate namedJdbcTemplate) {
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            QueryResultCache resultCache,
+            MaterializedAnswers materializedAnswers,
+            QueryAuditWriter auditWriter,
+            TemplatePlanGuard planGuard,
+            EntityResolutionIndex entityIndex,
+            TemporalExpressionParser temporalParser,
+            AssistantObservations observations,
+            @Value("${app.ai.timeout.query:5s}") Duration queryTimeout,
+            @Value("${app.ai.query.parallelism:4}") int parallelism) {
         this.templateRegistry = templateRegistry;
         this.namedJdbcTemplate = namedJdbcTemplate;
+        this.resultCache = resultCache;
+        this.materializedAnswers = materializedAnswers;
+        this.auditWriter = auditWriter;
+        this.planGuard = planGuard;
+        this.entityIndex = entityIndex;
+        this.temporalParser = temporalParser;
+        this.observations = observations;
+        // JDBC timeouts are whole seconds; 0 would mean "no timeout"
+        this.queryTimeoutSeconds = (int) Math.max(1, queryTimeout.toSeconds());
+        this.partExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().name("assistant-query-", 0).factory());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        partExecutor.shutdownNow();
+    }
+    
+    /**
+     * Execute every intent of a classified question. A single intent is executed
+     * as is; several run in parallel and come back as one combined result. A part
+     * that fails carries its error instead of failing the others.
+     *
+     * userId is the user who asked, for the audit trail; parts run on threads
+     * without a SecurityContext, so it is passed in rather than looked up.
+     */
+    public QueryResult executeAll(List<IntentRequest> intentRequests, UUID userId) {
+        if (intentRequests.size() == 1) {
+            return execute(intentRequests.get(0), userId);
+        }
+        
+        List<CompletableFuture<QueryResult>> parts = new ArrayList<>(intentRequests.size());
+        for (IntentRequest intentRequest : intentRequests) {
+            parts.add(CompletableFuture.supplyAsync(observations.propagate(() -> execute(intentRequest, userId)), partExecutor)
+                    .exceptionally(e -> failedPart(intentRequest, e)));
+        }
+        List<QueryResult> subResults = parts.stream().map(CompletableFuture::join).toList();
+        
+        logger.debug("Ran {} queries in parallel", subResults.size());
+        return QueryResult.builder()
+                .subResults(subResults)
+                .executedSql("N/A - Composite of " + subResults.size() + " queries")
+                .build();
+    }
+    
+    private static QueryResult failedPart(IntentRequest intentRequest, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return QueryResult.builder()
+                .intent(intentRequest.getIntent())
+                .error(cause.getMessage())
+                .build();
     }
     
     /**
      * Execute a query based on the classified intent and extracted entities
      */
-    public QueryResult execute(IntentRequest intentRequest) {
-        System.out.println("🔧 QueryPlanner: Processing intent: " + intentRequest.getIntent());
-        System.out.println("🔧 QueryPlanner: Entities: " + intentRequest.getEntities());
+    public QueryResult execute(IntentRequest intentRequest, UUID userId) {
+        logger.debug("Processing intent {} with entities {}", intentRequest.getIntent(), intentRequest.getEntities());
         
         // Special handling for non-database intents
         if (intentRequest.getIntent() == QueryIntent.CLARIFICATION_NEEDED) {
             return QueryResult.builder()
                     .intent(intentRequest.getIntent())
-                    .results(List.of())
                     .executedSql("N/A - Clarification needed")
                     .build();
         }
@@ -54,7 +195,6 @@ public class QueryPlanner {
         if (intentRequest.getIntent() == QueryIntent.UNKNOWN) {
             return QueryResult.builder()
                     .intent(intentRequest.getIntent())
-                    .results(List.of())
                     .executedSql("N/A - Unknown intent")
                     .build();
         }
@@ -62,53 +202,168 @@ public class QueryPlanner {
         if (intentRequest.getIntent() == QueryIntent.KNOWLEDGE_SEARCH) {
             return QueryResult.builder()
                     .intent(intentRequest.getIntent())
-                    .results(List.of())
                     .executedSql("N/A - Knowledge base query")
                     .build();
         }
         
-        // Get the SQL template for this intent
-        QueryTemplate template = templateRegistry.getTemplate(intentRequest.getIntent());
-        
-        // Validate that all required parameters are present
+        // Audited whatever the source; the writer only queues
+        long start = System.nanoTime();
         try {
-            template.validateParameters(intentRequest.getEntities());
-        } catch (IllegalArgumentException e) {
-            System.err.println("❌ QueryPlanner: Parameter validation failed: " + e.getMessage());
+            Answered answered = answer(intentRequest);
+            auditWriter.record(intentRequest, userId, answered.source(), answered.result(), System.nanoTime() - start);
+            return answered.result();
+        } catch (RuntimeException e) {
+            auditWriter.recordFailure(intentRequest, userId, e, System.nanoTime() - start);
             throw e;
         }
+    }
+    
+    private record Answered(QueryResult result, QueryAuditWriter.Source source) {}
+    
+    private Answered answer(IntentRequest intentRequest) {
+        QueryIntent intent = intentRequest.getIntent();
+        Prepared prepared = observations.stage(AssistantObservations.Stage.TEMPLATE, intent,
+                () -> prepare(intentRequest));
+        
+        Optional<QueryResult> materialized = materializedAnswers.answer(intent, prepared.params());
+        if (materialized.isPresent()) {
+            logger.debug("Answered {} from memory as of {}", intent, materialized.get().getFreshAsOf());
+            return new Answered(materialized.get(), QueryAuditWriter.Source.MEMORY);
+        }
+        
+        QueryResult cached = resultCache.get(prepared.cacheKey());
+        if (cached != null) {
+            logger.debug("Cache hit for {}", intent);
+            return new Answered(cached, QueryAuditWriter.Source.CACHE);
+        }
+        long cacheVersion = resultCache.version();
+        
+        return new Answered(observations.stage(AssistantObservations.Stage.SQL, intent,
+                () -> run(intent, prepared, cacheVersion)), QueryAuditWriter.Source.SQL);
+    }
+    
+    /**
+     * Template plus bound parameters, names already resolved to ids
+     */
+    private record Prepared(QueryTemplate template, Map<String, Object> params, QueryResultCache.Key cacheKey) {}
+    
+    private Prepared prepare(IntentRequest intentRequest) {
+        // Get the SQL template for this intent (refused if it failed startup EXPLAIN)
+        QueryTemplate template = templateRegistry.getTemplate(intentRequest.getIntent());
+        planGuard.checkExecutable(intentRequest.getIntent());
         
         // Prepare parameters for named parameter JDBC template
         Map<String, Object> params = new HashMap<>(intentRequest.getEntities());
         
         // Add default values for common optional parameters if not provided
+        // (before validation: fast-path requests only carry the entities the user mentioned)
         params.putIfAbsent("limit", 10);
         params.putIfAbsent("threshold", 10);
         
-        // Execute the query
-        String sql = template.getSql();
-        System.out.println("🔧 QueryPlanner: Executing SQL: " + sql);
-        System.out.println("🔧 QueryPlanner: Parameters: " + params);
+        // Validate that all required parameters are present
+        try {
+            template.validateParameters(params);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parameter validation failed: {}", e.getMessage());
+            throw e;
+        }
+        
+        // Replace names by ids before the cache lookup, so spelling variants share an entry
+        resolveEntityIds(template, params);
+        bindDateRange(params);
+        
+        return new Prepared(template, params, QueryResultCache.Key.of(intentRequest.getIntent(), params));
+    }
+    
+    private QueryResult run(QueryIntent intent, Prepared prepared, long cacheVersion) {
+        String sql = prepared.template().getSql();
+        logger.debug("Executing {} with parameters {}", intent, prepared.params());
         
         try {
-            List<Map<String, Object>> results = namedJdbcTemplate.queryForList(sql, params);
+            // Bind against the template's pre-parsed SQL; no per-call named-parameter parsing
+            MapSqlParameterSource paramSource = new MapSqlParameterSource(prepared.params());
+            ParsedSql parsedSql = prepared.template().getParsedSql();
+            String jdbcSql = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+            Object[] args = expandCollections(NamedParameterUtils.buildValueArray(parsedSql, paramSource, null));
+            int maxRows = planGuard.maxRows(intent);
+            PreparedStatementCreator statement = con -> {
+                PreparedStatement ps = con.prepareStatement(jdbcSql);
+                ps.setQueryTimeout(queryTimeoutSeconds);
+                if (maxRows > 0) {
+                    ps.setMaxRows(maxRows);
+                }
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            };
+            QueryResult result = namedJdbcTemplate.getJdbcOperations().query(statement, COMPACT_ROWS);
+            result.setIntent(intent);
+            result.setTruncated(maxRows > 0 && result.getResultCount() >= maxRows);
+            result.setExecutedSql(sql);
+            result.setFreshAsOf(result.getExecutedAt());
             
-            System.out.println("✅ QueryPlanner: Query successful, returned " + results.size() + " rows");
-            System.out.println("✅ QueryPlanner: Results: " + results);
+            logger.debug("{} returned {} rows", intent, result.getResultCount());
             
-            return QueryResult.builder()
-                    .intent(intentRequest.getIntent())
-                    .results(results)
-                    .executedSql(sql)
-                    .build();
+            resultCache.put(prepared.cacheKey(), prepared.template(), result, cacheVersion);
+            return result;
                     
         } catch (Exception e) {
-            System.err.println("❌ QueryPlanner: Query execution failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Query execution failed for {}: {}", intent, e.getMessage(), e);
             throw new RuntimeException("Failed to execute query: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * dateFrom/dateTo (ISO or BS day, inclusive) as Timestamps: start of the first
+     * day and start of the day after the last, so templates compare
+     * "col >= :dateFrom AND col < :dateTo" against the column's own index
+     */
+    private void bindDateRange(Map<String, Object> params) {
+        if (!params.containsKey("dateFrom") && !params.containsKey("dateTo")) {
+            return;
+        }
+        LocalDate from = temporalParser.parseDate(params.get("dateFrom"));
+        LocalDate to = temporalParser.parseDate(params.get("dateTo"));
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Dates must be yyyy-MM-dd, got dateFrom=" + params.get("dateFrom")
+                    + ", dateTo=" + params.get("dateTo"));
+        }
+        params.put("dateFrom", Timestamp.valueOf(from.atStartOfDay()));
+        params.put("dateTo", Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+    
+    private void resolveEntityIds(QueryTemplate template, Map<String, Object> params) {
+        for (Map.Entry<EntityType, String> idParam : ID_PARAMS.entrySet()) {
+            EntityType type = idParam.getKey();
+            if (!template.getSql().contains(":" + idParam.getValue()) || !params.containsKey(type.getEntityKey())) {
+                continue;
+            }
+            String name = String.valueOf(params.remove(type.getEntityKey()));
+            EntityResolutionIndex.Resolution resolution = entityIndex.resolve(type, name)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "No " + type.name().toLowerCase() + " found matching '" + name + "'"));
+            if (resolution.method() != EntityResolutionIndex.Method.EXACT) {
+                logger.debug("Resolved '{}' to '{}' ({}, {})", name, resolution.matchedName(),
+                        resolution.method(), String.format("%.2f", resolution.score()));
+            }
+            params.put(idParam.getValue(), resolution.ids());
+        }
+    }
+    
+    /**
+     * substituteNamedParameters expands a collection into "?, ?, ?"; bind its elements one by one
+     */
+    private static Object[] expandCollections(Object[] args) {
+        List<Object> expanded = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            if (arg instanceof Iterable<?> values) {
+                values.forEach(expanded::add);
+            } else {
+                expanded.add(arg);
+            }
+        }
+        return expanded.toArray();
+    }
+    
     /**
      * Check if the planner can handle this intent
      */
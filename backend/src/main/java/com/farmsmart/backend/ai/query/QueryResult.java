@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,10 +27,33 @@ public class QueryResult {
     private QueryIntent intent;
     
     /**
-     * The actual query results as a list of maps
-     * Each map represents one row with column names as keys
+     * Column labels, in select-list order
      */
-    private List<Map<String, Object>> results;
+    @Builder.Default
+    private List<String> columns = List.of();
+    
+    /**
+     * Result rows; each row's values follow the order of columns
+     */
+    @Builder.Default
+    private List<QueryRow> rows = List.of();
+    
+    /**
+     * True when the row cap of an auto-limited template was reached
+     */
+    private boolean truncated;
+    
+    /**
+     * One result per intent when a composite question was answered in one call;
+     * empty otherwise
+     */
+    @Builder.Default
+    private List<QueryResult> subResults = List.of();
+    
+    /**
+     * Why this part of a composite query failed; null on success
+     */
+    private String error;
     
     /**
      * The SQL query that was executed (for audit purposes)
@@ -42,25 +66,49 @@ public class QueryResult {
     @Builder.Default
     private LocalDateTime executedAt = LocalDateTime.now();
     
+    /**
+     * Point in time the rows reflect: when the query ran, or when the in-memory
+     * view they were answered from was loaded (MaterializedAnswers)
+     */
+    private LocalDateTime freshAsOf;
+    
     /**
      * Number of rows returned
      */
     public int getResultCount() {
-        return results != null ? results.size() : 0;
+        return rows != null ? rows.size() : 0;
+    }
+    
+    /**
+     * True when this result combines the results of several intents
+     */
+    public boolean isComposite() {
+        return subResults != null && !subResults.isEmpty();
     }
     
     /**
      * Check if query returned any results
      */
     public boolean isEmpty() {
-        return results == null || results.isEmpty();
+        if (isComposite()) {
+            return subResults.stream().allMatch(QueryResult::isEmpty);
+        }
+        return rows == null || rows.isEmpty();
     }
     
     /**
-     * Get first result row (if exists)
+     * Get first result row as column -> value (if exists)
      */
     public Map<String, Object> getFirstResult() {
-        return isEmpty() ? null : results.get(0);
+        if (isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        QueryRow first = rows.get(0);
+        for (int c = 0; c < columns.size(); c++) {
+            row.put(columns.get(c), first.get(c));
+        }
+        return row;
     }
     
     /**
@@ -72,19 +120,19 @@ public class QueryResult {
         }
         
         StringBuilder sb = new StringBuilder();
-        sb.append("Found ").append(getResultCount()).append(" result(s):\n");
+        sb.append("Found ").append(getResultCount()).append(" result(s)")
+                .append(truncated ? " (truncated - more rows exist)" : "").append(":\n");
         
-        for (int i = 0; i < results.size(); i++) {
-            Map<String, Object> row = results.get(i);
+        for (int i = 0; i < rows.size(); i++) {
+            QueryRow row = rows.get(i);
             sb.append("\n").append(i + 1).append(". ");
             
-            row.forEach((key, value) -> {
-                sb.append(key).append("=").append(value != null ? value : "null").append(", ");
-            });
-            
-            // Remove trailing comma
-            if (!row.isEmpty()) {
-                sb.setLength(sb.length() - 2);
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    sb.append(", ");
+                }
+                Object value = row.get(c);
+                sb.append(columns.get(c)).append("=").append(value != null ? value : "null");
             }
         }
         
@@ -0,0 +1,116 @@
+package com.farmsmart.backend.ai.query;
+
+import com.farmsmart.backend.ai.intent.QueryIntent;
+import com.farmsmart.backend.event.DataChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of template query results, keyed by intent + canonical parameters.
+ *
+ * Every entry is tagged with the tables its QueryTemplate reads. A committed
+ * write to one of those tables (DataChangedEvent) evicts only the entries with
+ * that tag; the TTL is a backstop for writes that bypass both JPA and the event.
+ *
+ * A result is only stored if no invalidation ran while its query was executing,
+ * so a read that raced with a commit can never re-populate stale data.
+ */
+@Component
+public class QueryResultCache {
+
+    /**
+     * Intent plus parameters sorted by name, values compared as strings (10 == "10")
+     */
+    public record Key(QueryIntent intent, String params) {
+
+        public static Key of(QueryIntent intent, Map<String, Object> params) {
+            StringBuilder sb = new StringBuilder();
+            new TreeMap<>(params).forEach((name, value) -> sb.append(name).append('=').append(value).append('&'));
+            return new Key(intent, sb.toString());
+        }
+    }
+
+    private final Cache<Key, QueryResult> cache;
+    private final Map<String, Set<Key>> keysByTable = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public QueryResultCache(MeterRegistry meterRegistry,
+                            @Value("${app.ai.query-cache.ttl:10m}") Duration ttl,
+                            @Value("${app.ai.query-cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .executor(Runnable::run)
+                .removalListener((Key key, QueryResult value, RemovalCause cause) -> {
+                    // Keep the tag index from growing with expired/evicted keys
+                    if (key != null && cause != RemovalCause.REPLACED && cache().getIfPresent(key) == null) {
+                        keysByTable.values().forEach(keys -> keys.remove(key));
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "assistantQuery");
+    }
+
+    private Cache<Key, QueryResult> cache() {
+        return cache;
+    }
+
+    public QueryResult get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Snapshot to pass back to put(); taken before the query runs
+     */
+    public long version() {
+        return invalidations.get();
+    }
+
+    public void put(Key key, QueryTemplate template, QueryResult result, long versionBeforeQuery) {
+        if (template.getTables() == null || template.getTables().isEmpty()) {
+            return;
+        }
+        for (String table : template.getTables()) {
+            keysByTable.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        cache.put(key, result);
+        // An invalidation ran during the query: the result may predate the commit
+        if (invalidations.get() != versionBeforeQuery) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Runs after the writing transaction commits (or immediately outside one)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        invalidations.incrementAndGet();
+        for (String table : event.tables()) {
+            Set<Key> keys = keysByTable.remove(table);
+            if (keys != null && !keys.isEmpty()) {
+                cache.invalidateAll(keys);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+        keysByTable.clear();
+    }
+}
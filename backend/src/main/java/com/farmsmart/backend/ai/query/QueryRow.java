@@ -0,0 +1,17 @@
+package com.farmsmart.backend.ai.query;
+
+/**
+ * One result row as a plain value array, positioned by QueryResult.columns.
+ * Replaces the per-row LinkedHashMap of queryForList: one array per row and
+ * column names stored once per result.
+ */
+public record QueryRow(Object[] values) {
+
+    public Object get(int column) {
+        return values[column];
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
@@ -1,9 +1,11 @@
 package com.farmsmart.backend.ai.query;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Immutable template for SQL queries.
@@ -11,9 +13,10 @@ import java.util.List;
  * - The SQL query with named parameters (e.g., :productName)
  * - List of required parameter names
  * - Description for documentation
+ * - Tables it reads (cache invalidation tags)
+ * - The SQL pre-parsed once for named parameters, reused by every execution
  */
 @Data
-@AllArgsConstructor
 public class QueryTemplate {
     
     /**
@@ -33,6 +36,25 @@ public class QueryTemplate {
      */
     private final String description;
     
+    /**
+     * Tables the query reads. Used to invalidate cached results when any of them changes.
+     * Example: ["sale", "customer"]
+     */
+    private final Set<String> tables;
+    
+    /**
+     * Named-parameter parse of sql, computed once when the registry is built
+     */
+    private final ParsedSql parsedSql;
+    
+    public QueryTemplate(String sql, List<String> requiredParams, String description, Set<String> tables) {
+        this.sql = sql;
+        this.requiredParams = requiredParams;
+        this.description = description;
+        this.tables = tables;
+        this.parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+    }
+    
     /**
      * Validate that all required parameters are present in the provided entities map
      */
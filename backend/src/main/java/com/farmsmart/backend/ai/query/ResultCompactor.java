@@ -0,0 +1,184 @@
+package com.farmsmart.backend.ai.query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formats a QueryResult for the LLM within a token budget.
+ *
+ * Output is columnar - the header once, then one " | "-separated line per row -
+ * instead of repeating key=value for every cell. Rows are added in query order
+ * until app.ai.result.token-budget is reached; the rest are summarized with
+ * per-column aggregates (sum/min/max for numeric columns) computed over ALL rows,
+ * so totals stay correct even when rows are cut.
+ *
+ * A composite result (several intents answered in one call) is written as one
+ * "[n] INTENT" section per part, each with an equal share of the budget.
+ *
+ * Tokens are estimated at ~4 characters each. The difference to the old
+ * key=value format is counted in assistant.result.tokens.saved.
+ */
+@Component
+public class ResultCompactor {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final String SEPARATOR = " | ";
+
+    private final int tokenBudget;
+    private final Counter tokensSaved;
+    private final Counter rowsSummarized;
+    private final DistributionSummary tokensReturned;
+
+    public ResultCompactor(MeterRegistry meterRegistry,
+                           @Value("${app.ai.result.token-budget:800}") int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+        this.tokensSaved = Counter.builder("assistant.result.tokens.saved")
+                .description("Estimated tokens saved versus key=value formatting")
+                .register(meterRegistry);
+        this.rowsSummarized = Counter.builder("assistant.result.rows.summarized")
+                .description("Rows replaced by aggregates to stay within the token budget")
+                .register(meterRegistry);
+        this.tokensReturned = DistributionSummary.builder("assistant.result.tokens")
+                .description("Estimated tokens per tool response")
+                .register(meterRegistry);
+    }
+
+    public String compact(QueryResult result) {
+        if (!result.isComposite()) {
+            return compact(result, tokenBudget);
+        }
+        List<QueryResult> parts = result.getSubResults();
+        int partBudget = Math.max(1, tokenBudget / parts.size());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            QueryResult part = parts.get(i);
+            sb.append('[').append(i + 1).append("] ").append(part.getIntent()).append('\n');
+            if (part.getError() != null) {
+                sb.append("Error: ").append(part.getError()).append('\n');
+            } else {
+                sb.append(compact(part, partBudget)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String compact(QueryResult result, int budgetTokens) {
+        if (result.isEmpty()) {
+            return "No results found.";
+        }
+
+        List<String> columns = result.getColumns();
+        List<QueryRow> rows = result.getRows();
+        int budgetChars = budgetTokens * CHARS_PER_TOKEN;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Found ").append(rows.size()).append(" result(s)")
+                .append(result.isTruncated() ? " (truncated - more rows exist)" : "")
+                .append(":\n");
+        sb.append(String.join(SEPARATOR, columns)).append('\n');
+
+        int shown = 0;
+        StringBuilder line = new StringBuilder();
+        for (QueryRow row : rows) {
+            line.setLength(0);
+            for (int c = 0; c < row.size(); c++) {
+                if (c > 0) line.append(SEPARATOR);
+                line.append(format(row.get(c)));
+            }
+            // Always show at least one row
+            if (shown > 0 && sb.length() + line.length() + 1 > budgetChars) {
+                break;
+            }
+            sb.append(line).append('\n');
+            shown++;
+        }
+
+        int remaining = rows.size() - shown;
+        if (remaining > 0) {
+            sb.append("... ").append(remaining).append(" more row(s) not shown. Totals over all ")
+                    .append(rows.size()).append(" rows:\n");
+            appendAggregates(sb, columns, rows);
+            rowsSummarized.increment(remaining);
+        }
+
+        String compacted = sb.toString();
+        long compactTokens = compacted.length() / CHARS_PER_TOKEN;
+        long verboseTokens = verboseLength(columns, rows) / CHARS_PER_TOKEN;
+        tokensReturned.record(compactTokens);
+        if (verboseTokens > compactTokens) {
+            tokensSaved.increment(verboseTokens - compactTokens);
+        }
+        return compacted;
+    }
+
+    private static void appendAggregates(StringBuilder sb, List<String> columns, List<QueryRow> rows) {
+        for (int c = 0; c < columns.size(); c++) {
+            BigDecimal sum = BigDecimal.ZERO;
+            BigDecimal min = null;
+            BigDecimal max = null;
+            int numeric = 0;
+            int nulls = 0;
+            for (QueryRow row : rows) {
+                Object value = row.get(c);
+                if (value == null) {
+                    nulls++;
+                } else if (value instanceof Number number) {
+                    BigDecimal v = new BigDecimal(number.toString());
+                    sum = sum.add(v);
+                    min = min == null || v.compareTo(min) < 0 ? v : min;
+                    max = max == null || v.compareTo(max) > 0 ? v : max;
+                    numeric++;
+                }
+            }
+            if (numeric == 0) {
+                continue;
+            }
+            List<String> parts = new ArrayList<>();
+            parts.add("sum=" + sum.stripTrailingZeros().toPlainString());
+            parts.add("min=" + min.stripTrailingZeros().toPlainString());
+            parts.add("max=" + max.stripTrailingZeros().toPlainString());
+            parts.add("avg=" + sum.divide(BigDecimal.valueOf(numeric), 2, RoundingMode.HALF_UP).toPlainString());
+            if (nulls > 0) {
+                parts.add("null=" + nulls);
+            }
+            sb.append("- ").append(columns.get(c)).append(": ").append(String.join(", ", parts)).append('\n');
+        }
+    }
+
+    /**
+     * Length of QueryResult.toFormattedString() without building it
+     */
+    private static long verboseLength(List<String> columns, List<QueryRow> rows) {
+        long columnChars = 0;
+        for (String column : columns) {
+            columnChars += column.length() + 3; // "=" and ", "
+        }
+        long total = 30;
+        for (int i = 0; i < rows.size(); i++) {
+            total += 4 + String.valueOf(i + 1).length() + columnChars;
+            QueryRow row = rows.get(i);
+            for (int c = 0; c < row.size(); c++) {
+                total += String.valueOf(row.get(c)).length();
+            }
+        }
+        return total;
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Central registry of all SQL query templates.
@@ -40,6 +41,13 @@ public class SqlTemplateRegistry {
         return template;
     }
     
+    /**
+     * All templates, for startup validation
+     */
+    public Map<QueryIntent, QueryTemplate> getAllTemplates() {
+        return Map.copyOf(templates);
+    }
+    
     /**
      * Check if a template exists for the given intent
      */
@@ -65,10 +73,11 @@ public class SqlTemplateRegistry {
                 selling_price,
                 cost_price
             FROM product
-            WHERE LOWER(name) = LOWER(:productName)
+            WHERE id IN (:productIds)
             """,
             List.of("productName"),
-            "Check stock level for a specific product by name"
+            "Check stock level for a specific product by name",
+            Set.of("product")
         ));
         
         templates.put(QueryIntent.INVENTORY_LOW_STOCK, new QueryTemplate(
@@ -85,7 +94,8 @@ public class SqlTemplateRegistry {
             LIMIT :limit
             """,
             List.of("threshold", "limit"),
-            "Find products with stock below threshold"
+            "Find products with stock below threshold",
+            Set.of("product")
         ));
         
         templates.put(QueryIntent.INVENTORY_BY_CATEGORY, new QueryTemplate(
@@ -100,7 +110,8 @@ public class SqlTemplateRegistry {
             ORDER BY name
             """,
             List.of("category"),
-            "List all products in a specific category"
+            "List all products in a specific category",
+            Set.of("product")
         ));
         
         templates.put(QueryIntent.INVENTORY_ALL, new QueryTemplate(
@@ -116,7 +127,8 @@ public class SqlTemplateRegistry {
             ORDER BY category, name
             """,
             List.of(),
-            "List all products with stock levels"
+            "List all products with stock levels",
+            Set.of("product")
         ));
         
         // ========== SALES QUERIES ==========
@@ -130,11 +142,12 @@ public class SqlTemplateRegistry {
                 SUM(s.remaining_balance) as outstanding_balance
             FROM sale s
             JOIN customer c ON s.customer_id = c.id
-            WHERE LOWER(c.name) = LOWER(:customerName)
-            GROUP BY c.name
+            WHERE c.id IN (:customerIds)
+            GROUP BY c.id, c.name
             """,
             List.of("customerName"),
-            "Get total sales for a specific customer"
+            "Get total sales for a specific customer",
+            Set.of("sale", "customer")
         ));
         
         templates.put(QueryIntent.SALES_TOTAL_BY_DATE_RANGE, new QueryTemplate(
@@ -146,13 +159,14 @@ public class SqlTemplateRegistry {
                 SUM(s.initial_paid_amount) as total_paid,
                 SUM(s.remaining_balance) as total_outstanding
             FROM sale s
-            WHERE s.created_at >= CAST(:dateFrom AS TIMESTAMP)
-                AND s.created_at <= CAST(:dateTo AS TIMESTAMP)
+            WHERE s.created_at >= :dateFrom
+                AND s.created_at < :dateTo
             GROUP BY DATE(s.created_at)
             ORDER BY sale_date DESC
             """,
             List.of("dateFrom", "dateTo"),
-            "Get sales totals within a date range"
+            "Get sales totals within a date range",
+            Set.of("sale")
         ));
         
         templates.put(QueryIntent.SALES_BY_PRODUCT, new QueryTemplate(
@@ -165,11 +179,12 @@ public class SqlTemplateRegistry {
             FROM sale_item si
             JOIN product p ON si.product_id = p.id
             JOIN sale s ON si.sale_id = s.id
-            WHERE LOWER(p.name) = LOWER(:productName)
-            GROUP BY p.name
+            WHERE p.id IN (:productIds)
+            GROUP BY p.id, p.name
             """,
             List.of("productName"),
-            "Get sales history for a specific product"
+            "Get sales history for a specific product",
+            Set.of("sale_item", "product", "sale")
         ));
         
         templates.put(QueryIntent.SALES_RECENT, new QueryTemplate(
@@ -187,7 +202,8 @@ public class SqlTemplateRegistry {
             LIMIT :limit
             """,
             List.of("limit"),
-            "Get recent sales transactions"
+            "Get recent sales transactions",
+            Set.of("sale", "customer")
         ));
         
         templates.put(QueryIntent.SALES_DETAIL, new QueryTemplate(
@@ -212,7 +228,8 @@ public class SqlTemplateRegistry {
             WHERE s.id = CAST(:saleId AS UUID)
             """,
             List.of("saleId"),
-            "Get detailed information about a specific sale"
+            "Get detailed information about a specific sale",
+            Set.of("sale", "customer", "sale_item", "product")
         ));
         
         // ========== CREDIT QUERIES ==========
@@ -226,12 +243,13 @@ public class SqlTemplateRegistry {
                 COUNT(cl.id) as active_credits,
                 SUM(cl.current_balance) as total_debt
             FROM customer c
-            LEFT JOIN credit_ledger cl ON cl.customer_id = c.id AND cl.status = 'ACTIVE'
-            WHERE LOWER(c.name) = LOWER(:customerName)
+            LEFT JOIN credit_ledger cl ON cl.customer_id = c.id AND cl.status IN ('ACTIVE', 'PARTIAL', 'OVERDUE')
+            WHERE c.id IN (:customerIds)
             GROUP BY c.id, c.name, c.current_total_balance, c.credit_limit
             """,
             List.of("customerName"),
-            "Get credit balance for a specific customer"
+            "Get credit balance for a specific customer",
+            Set.of("customer", "credit_ledger")
         ));
         
         templates.put(QueryIntent.CREDIT_OVERDUE_ALL, new QueryTemplate(
@@ -244,13 +262,13 @@ public class SqlTemplateRegistry {
                 CURRENT_DATE - cl.due_date as days_overdue
             FROM credit_ledger cl
             JOIN customer c ON cl.customer_id = c.id
-            WHERE cl.status = 'ACTIVE'
-                AND cl.due_date < CURRENT_DATE
+            WHERE cl.status = 'OVERDUE'
             ORDER BY cl.due_date ASC
             LIMIT :limit
             """,
             List.of("limit"),
-            "List overdue credit accounts"
+            "List overdue credit accounts",
+            Set.of("credit_ledger", "customer")
         ));
         
         templates.put(QueryIntent.CREDIT_SUMMARY, new QueryTemplate(
@@ -259,13 +277,14 @@ public class SqlTemplateRegistry {
                 COUNT(DISTINCT cl.customer_id) as customers_with_credit,
                 COUNT(cl.id) as total_active_credits,
                 SUM(cl.current_balance) as total_outstanding,
-                SUM(CASE WHEN cl.due_date < CURRENT_DATE THEN cl.current_balance ELSE 0 END) as overdue_amount,
-                SUM(CASE WHEN cl.due_date >= CURRENT_DATE THEN cl.current_balance ELSE 0 END) as not_yet_due
+                SUM(CASE WHEN cl.status = 'OVERDUE' THEN cl.current_balance ELSE 0 END) as overdue_amount,
+                SUM(CASE WHEN cl.status <> 'OVERDUE' THEN cl.current_balance ELSE 0 END) as not_yet_due
             FROM credit_ledger cl
-            WHERE cl.status = 'ACTIVE'
+            WHERE cl.status IN ('ACTIVE', 'PARTIAL', 'OVERDUE')
             """,
             List.of(),
-            "Get summary of all active credits"
+            "Get summary of all active credits",
+            Set.of("credit_ledger")
         ));
         
         // ========== PAYMENT QUERIES ==========
@@ -281,23 +300,26 @@ public class SqlTemplateRegistry {
             ORDER BY pt.payment_date DESC
             """,
             List.of("saleId"),
-            "Get payment history for a specific sale"
+            "Get payment history for a specific sale",
+            Set.of("payment_transaction")
         ));
         
         templates.put(QueryIntent.PAYMENT_SUMMARY_BY_METHOD, new QueryTemplate(
             """
             SELECT 
-                pt.payment_method,
-                COUNT(pt.id) as transaction_count,
-                SUM(pt.amount_paid) as total_amount
-            FROM payment_transaction pt
-            WHERE pt.payment_date >= CAST(:dateFrom AS TIMESTAMP)
-                AND pt.payment_date <= CAST(:dateTo AS TIMESTAMP)
-            GROUP BY pt.payment_method
+                r.payment_method,
+                SUM(r.txn_count) as transaction_count,
+                SUM(r.total_amount) as total_amount
+            FROM payment_daily_rollup r
+            WHERE r.payment_day >= CAST(:dateFrom AS DATE)
+                AND r.payment_day < CAST(:dateTo AS DATE)
+            GROUP BY r.payment_method
             ORDER BY total_amount DESC
             """,
             List.of("dateFrom", "dateTo"),
-            "Get payment summary grouped by method"
+            "Get payment summary grouped by method",
+            // payment_daily_rollup is maintained by a trigger on payment_transaction inserts
+            Set.of("payment_daily_rollup", "payment_transaction")
         ));
         
         templates.put(QueryIntent.PAYMENT_HISTORY_CUSTOMER, new QueryTemplate(
@@ -311,12 +333,13 @@ public class SqlTemplateRegistry {
             FROM payment_transaction pt
             JOIN customer c ON pt.customer_id = c.id
             JOIN sale s ON pt.sale_id = s.id
-            WHERE LOWER(c.name) = LOWER(:customerName)
+            WHERE c.id IN (:customerIds)
             ORDER BY pt.payment_date DESC
             LIMIT :limit
             """,
             List.of("customerName", "limit"),
-            "Get payment history for a customer"
+            "Get payment history for a customer",
+            Set.of("payment_transaction", "customer", "sale")
         ));
         
         // ========== CUSTOMER QUERIES ==========
@@ -333,10 +356,11 @@ public class SqlTemplateRegistry {
                 c.current_total_balance,
                 c.registered_at
             FROM customer c
-            WHERE LOWER(c.name) = LOWER(:customerName)
+            WHERE c.id IN (:customerIds)
             """,
             List.of("customerName"),
-            "Get detailed information about a customer"
+            "Get detailed information about a customer",
+            Set.of("customer")
         ));
         
         templates.put(QueryIntent.CUSTOMER_LIST_BY_TYPE, new QueryTemplate(
@@ -352,7 +376,8 @@ public class SqlTemplateRegistry {
             ORDER BY name
             """,
             List.of("customerType"),
-            "List customers by type"
+            "List customers by type",
+            Set.of("customer")
         ));
         
         templates.put(QueryIntent.CUSTOMER_LIST_ALL, new QueryTemplate(
@@ -367,7 +392,8 @@ public class SqlTemplateRegistry {
             ORDER BY customer_type, name
             """,
             List.of(),
-            "List all customers"
+            "List all customers",
+            Set.of("customer")
         ));
     }
 }
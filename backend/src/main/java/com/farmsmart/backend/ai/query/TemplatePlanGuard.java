@@ -0,0 +1,215 @@
+package com.farmsmart.backend.ai.query;
+
+import com.farmsmart.backend.ai.intent.QueryIntent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validates every SqlTemplateRegistry template against the live schema.
+ *
+ * At startup (and every app.ai.template-guard.revalidate-ms) each template is
+ * run through EXPLAIN (FORMAT JSON) with sample parameters:
+ * - EXPLAIN fails (typo, missing column/table)   -> DISABLED, planner refuses it
+ * - sequential scan of more than seq-scan-rows
+ *   estimated rows and no LIMIT in the plan       -> AUTO_LIMITED to max-rows
+ * - otherwise                                     -> VALID
+ *
+ * Estimated cost and rows are exported as assistant.template.plan.cost and
+ * assistant.template.plan.rows gauges, tagged by intent.
+ */
+@Component
+public class TemplatePlanGuard {
+
+    public enum Status { VALID, AUTO_LIMITED, DISABLED }
+
+    public record TemplatePlan(Status status, double totalCost, double planRows, int maxRows, String reason) {}
+
+    // Values only need the right shape for the planner; dates are bound as Timestamps like QueryPlanner does
+    private static final Map<String, Object> SAMPLE_PARAMS = Map.of(
+            "limit", 10,
+            "threshold", 10,
+            "dateFrom", Timestamp.valueOf("2000-01-01 00:00:00"),
+            "dateTo", Timestamp.valueOf("2000-02-01 00:00:00"),
+            "saleId", "00000000-0000-0000-0000-000000000000",
+            "customerIds", List.of(new UUID(0, 0)),
+            "productIds", List.of(new UUID(0, 0)),
+            "customerType", "FARMER");
+
+    private static final Pattern PARAM_PATTERN = Pattern.compile("(?<!:):([a-zA-Z_][a-zA-Z0-9_]*)");
+
+    private final SqlTemplateRegistry templateRegistry;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final long seqScanRows;
+    private final int maxRows;
+
+    private final Map<QueryIntent, TemplatePlan> plans = new ConcurrentHashMap<>();
+
+    public TemplatePlanGuard(SqlTemplateRegistry templateRegistry,
+                             NamedParameterJdbcTemplate namedJdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.ai.template-guard.enabled:true}") boolean enabled,
+                             @Value("${app.ai.template-guard.seq-scan-rows:5000}") long seqScanRows,
+                             @Value("${app.ai.template-guard.max-rows:500}") int maxRows) {
+        this.templateRegistry = templateRegistry;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.seqScanRows = seqScanRows;
+        this.maxRows = maxRows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        validateAll();
+    }
+
+    /**
+     * Re-check as tables grow: a scan that was cheap at startup may not stay cheap
+     */
+    @Scheduled(fixedDelayString = "${app.ai.template-guard.revalidate-ms:21600000}",
+               initialDelayString = "${app.ai.template-guard.revalidate-ms:21600000}")
+    public void validateAll() {
+        if (!enabled) {
+            return;
+        }
+        int disabled = 0;
+        int limited = 0;
+        for (Map.Entry<QueryIntent, QueryTemplate> entry : templateRegistry.getAllTemplates().entrySet()) {
+            TemplatePlan plan = explain(entry.getValue());
+            if (plan == null) {
+                continue;
+            }
+            if (plans.put(entry.getKey(), plan) == null) {
+                registerGauges(entry.getKey());
+            }
+            if (plan.status() == Status.DISABLED) {
+                disabled++;
+                System.err.println("❌ TemplatePlanGuard: " + entry.getKey() + " disabled: " + plan.reason());
+            } else if (plan.status() == Status.AUTO_LIMITED) {
+                limited++;
+                System.out.println("⚠️ TemplatePlanGuard: " + entry.getKey() + " limited to " + plan.maxRows()
+                        + " rows: " + plan.reason());
+            }
+        }
+        System.out.println("✅ TemplatePlanGuard: Checked " + plans.size() + " templates ("
+                + disabled + " disabled, " + limited + " auto-limited)");
+    }
+
+    /**
+     * Max rows to fetch for this intent; 0 means unlimited
+     */
+    public int maxRows(QueryIntent intent) {
+        TemplatePlan plan = plans.get(intent);
+        return plan != null && plan.status() == Status.AUTO_LIMITED ? plan.maxRows() : 0;
+    }
+
+    /**
+     * Throws if the template failed validation. Unchecked templates (guard off,
+     * startup still running) are allowed through.
+     */
+    public void checkExecutable(QueryIntent intent) {
+        TemplatePlan plan = plans.get(intent);
+        if (plan != null && plan.status() == Status.DISABLED) {
+            throw new IllegalStateException("Query template for " + intent + " is disabled: " + plan.reason());
+        }
+    }
+
+    public Map<QueryIntent, TemplatePlan> getPlans() {
+        return Map.copyOf(plans);
+    }
+
+    /**
+     * Null when the check itself could not run
+     */
+    private TemplatePlan explain(QueryTemplate template) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (String name : parameterNames(template.getSql())) {
+            params.addValue(name, SAMPLE_PARAMS.getOrDefault(name, "x"));
+        }
+        try {
+            String json = namedJdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + template.getSql(), params, String.class);
+            JsonNode root = objectMapper.readTree(json).get(0).get("Plan");
+            double cost = root.path("Total Cost").asDouble();
+            double rows = root.path("Plan Rows").asDouble();
+
+            JsonNode bigScan = findLargeSeqScan(root);
+            if (bigScan != null && !hasLimit(root)) {
+                return new TemplatePlan(Status.AUTO_LIMITED, cost, rows, maxRows,
+                        "sequential scan of " + bigScan.path("Relation Name").asText()
+                                + " (~" + (long) bigScan.path("Plan Rows").asDouble() + " rows) without LIMIT");
+            }
+            return new TemplatePlan(Status.VALID, cost, rows, 0, null);
+        } catch (BadSqlGrammarException | InvalidDataAccessApiUsageException e) {
+            // The template itself is broken
+            return new TemplatePlan(Status.DISABLED, Double.NaN, Double.NaN, 0, e.getMostSpecificCause().getMessage());
+        } catch (Exception e) {
+            // Connection trouble etc. says nothing about the template: keep the previous verdict
+            System.err.println("⚠️ TemplatePlanGuard: Could not EXPLAIN template: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Distinct :name parameters (ParsedSql does not expose its names)
+     */
+    private static Set<String> parameterNames(String sql) {
+        Set<String> names = new LinkedHashSet<>();
+        Matcher m = PARAM_PATTERN.matcher(sql);
+        while (m.find()) {
+            names.add(m.group(1));
+        }
+        return names;
+    }
+
+    private JsonNode findLargeSeqScan(JsonNode node) {
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && node.path("Plan Rows").asDouble() > seqScanRows) {
+            return node;
+        }
+        for (JsonNode child : node.path("Plans")) {
+            JsonNode found = findLargeSeqScan(child);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasLimit(JsonNode root) {
+        return "Limit".equals(root.path("Node Type").asText());
+    }
+
+    private void registerGauges(QueryIntent intent) {
+        Gauge.builder("assistant.template.plan.cost", plans, p -> p.get(intent).totalCost())
+                .description("Planner total cost estimate for the assistant query template")
+                .tag("intent", intent.name())
+                .register(meterRegistry);
+        Gauge.builder("assistant.template.plan.rows", plans, p -> p.get(intent).planRows())
+                .description("Planner row estimate for the assistant query template")
+                .tag("intent", intent.name())
+                .register(meterRegistry);
+    }
+}
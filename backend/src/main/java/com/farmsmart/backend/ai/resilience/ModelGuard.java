@@ -0,0 +1,277 @@
+package com.farmsmart.backend.ai.resilience;
+
+import com.farmsmart.backend.ai.observation.AssistantObservations;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker plus adaptive concurrency limit for one model.
+ *
+ * Circuit: the outcomes of the last window calls are kept in a ring. Once at
+ * least half the window is filled and the failure rate reaches failureRate,
+ * the circuit opens and calls fail immediately for openFor. After that a
+ * single probe call is let through: success closes the circuit, failure
+ * opens it again.
+ *
+ * Limit (AIMD): calls beyond the current limit are rejected instead of
+ * queueing behind a slow upstream. A fast success while the limit is in use
+ * raises it by one; a failure or a call slower than latencyTarget cuts it by
+ * a quarter. The limit therefore shrinks as soon as Gemini slows down and
+ * grows back when it recovers.
+ *
+ * Metrics per model tag: assistant.model.limit, assistant.model.inflight,
+ * assistant.model.circuit (0 closed, 1 half-open, 2 open),
+ * assistant.model.calls{outcome} and assistant.llm.tokens{type}. Every admitted
+ * call is an assistant.llm observation, nested under the caller's stage.
+ */
+public class ModelGuard {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    public record Settings(int window, double failureRate, Duration openFor,
+                           int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {}
+
+    /**
+     * One admitted call; exactly one of success/failure must be called
+     */
+    public final class Permit {
+        private final long started = System.nanoTime();
+        private final boolean probe;
+        private final Observation observation;
+        private boolean done;
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+            this.observation = Observation.start(AssistantObservations.LLM, observationRegistry)
+                    .lowCardinalityKeyValue("model", name);
+        }
+
+        public void success() {
+            complete(true, System.nanoTime() - started, null);
+        }
+
+        public void failure() {
+            complete(false, System.nanoTime() - started, null);
+        }
+
+        public void failure(Throwable error) {
+            complete(false, System.nanoTime() - started, error);
+        }
+
+        private void complete(boolean ok, long nanos, Throwable error) {
+            synchronized (ModelGuard.this) {
+                if (done) return;
+                done = true;
+            }
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.lowCardinalityKeyValue("outcome", ok ? "success" : "failure").stop();
+            onComplete(this, ok, nanos);
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomeIndex;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private boolean probeInFlight;
+
+    private double limit;
+    private int inFlight;
+
+    public ModelGuard(String name, Settings settings, MeterRegistry meterRegistry,
+                      ObservationRegistry observationRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.outcomes = new boolean[settings.window()];
+        this.limit = settings.initialLimit();
+
+        Gauge.builder("assistant.model.limit", this, g -> g.limit())
+                .description("Current adaptive concurrency limit")
+                .tag("model", name)
+                .register(meterRegistry);
+        Gauge.builder("assistant.model.inflight", this, g -> g.inFlight())
+                .description("Model calls in flight")
+                .tag("model", name)
+                .register(meterRegistry);
+        Gauge.builder("assistant.model.circuit", this, g -> g.state().ordinal())
+                .description("Circuit state: 0 closed, 1 half-open, 2 open")
+                .tag("model", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a blocking model call through the guard
+     */
+    public <T> T call(Supplier<T> modelCall) {
+        Permit permit = acquire();
+        Throwable error = null;
+        try {
+            return permit.observation.scoped(modelCall);
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            // Errors too, or the permit would hold a slot of the limit forever
+            if (error == null) {
+                permit.success();
+            } else {
+                permit.failure(error);
+            }
+        }
+    }
+    
+    /**
+     * Token usage of a completed call, as reported by the model
+     */
+    public void recordTokens(TokenUsage tokenUsage) {
+        if (tokenUsage == null) {
+            return;
+        }
+        if (tokenUsage.inputTokenCount() != null) {
+            tokens("input").record(tokenUsage.inputTokenCount());
+        }
+        if (tokenUsage.outputTokenCount() != null) {
+            tokens("output").record(tokenUsage.outputTokenCount());
+        }
+    }
+    
+    private DistributionSummary tokens(String type) {
+        return DistributionSummary.builder("assistant.llm.tokens")
+                .description("Tokens per model call")
+                .tag("model", name)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit one call or throw ModelUnavailableException. For callbacks (streaming)
+     * where the outcome is reported later.
+     */
+    public Permit acquire() {
+        return new Permit(admit());
+    }
+    
+    /**
+     * Whether the admitted call is the half-open probe
+     */
+    private synchronized boolean admit() {
+        boolean probe = false;
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return reject("open", "circuit open");
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return reject("open", "circuit half-open, probe in flight");
+            }
+            probeInFlight = true;
+            probe = true;
+        } else if (inFlight >= (int) limit) {
+            return reject("limited", "concurrency limit " + (int) limit + " reached");
+        }
+        inFlight++;
+        return probe;
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private boolean reject(String outcome, String reason) {
+        meterRegistry.counter("assistant.model.calls", "model", name, "outcome", outcome).increment();
+        throw new ModelUnavailableException("AI model '" + name + "' unavailable: " + reason);
+    }
+
+    private void onComplete(Permit permit, boolean ok, long nanos) {
+        meterRegistry.counter("assistant.model.calls", "model", name, "outcome", ok ? "success" : "failure").increment();
+        boolean slow = nanos > settings.latencyTarget().toNanos();
+        synchronized (this) {
+            boolean limitInUse = inFlight * 2 >= limit;
+            inFlight--;
+
+            if (ok && !slow) {
+                if (limitInUse) {
+                    limit = Math.min(settings.maxLimit(), limit + 1);
+                }
+            } else {
+                limit = Math.max(settings.minLimit(), limit * 0.75);
+            }
+
+            if (permit.probe) {
+                probeInFlight = false;
+                if (ok) {
+                    state = State.CLOSED;
+                    resetWindow();
+                } else {
+                    open();
+                }
+                return;
+            }
+            recordOutcome(ok);
+            if (state == State.CLOSED && outcomeCount >= Math.max(1, settings.window() / 2)
+                    && failures >= settings.failureRate() * outcomeCount) {
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + settings.openFor().toMillis();
+        System.err.println("⛔ ModelGuard: Circuit for " + name + " opened for " + settings.openFor().toSeconds() + "s");
+    }
+
+    private void recordOutcome(boolean ok) {
+        if (outcomeCount == outcomes.length) {
+            if (!outcomes[outcomeIndex]) failures--;
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeIndex] = ok;
+        if (!ok) failures++;
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+    }
+
+    private void resetWindow() {
+        outcomeCount = 0;
+        outcomeIndex = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.farmsmart.backend.ai.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One ModelGuard per model bean, so a slow vision model cannot use up the
+ * chat model's capacity (separate bulkheads). Settings are shared
+ * app.ai.model.* properties; the latency target is half the model's timeout.
+ * The limit starts at the executor's max-concurrent, so a healthy model is
+ * not throttled below what the bulkhead already admits.
+ */
+@Component
+public class ModelGuardRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final int window;
+    private final double failureRate;
+    private final Duration openFor;
+    private final int initialLimit;
+    private final int maxLimit;
+    private final Map<String, ModelGuard> guards = new ConcurrentHashMap<>();
+
+    public ModelGuardRegistry(MeterRegistry meterRegistry,
+                              ObservationRegistry observationRegistry,
+                              @Value("${app.ai.model.breaker.window:20}") int window,
+                              @Value("${app.ai.model.breaker.failure-rate:0.5}") double failureRate,
+                              @Value("${app.ai.model.breaker.open-for:30s}") Duration openFor,
+                              @Value("${app.ai.model.limit.initial:${app.ai.executor.max-concurrent:16}}") int initialLimit,
+                              @Value("${app.ai.model.limit.max:32}") int maxLimit) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.window = window;
+        this.failureRate = failureRate;
+        this.openFor = openFor;
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public ModelGuard guard(String model, Duration timeout) {
+        return guards.computeIfAbsent(model, name -> new ModelGuard(name, new ModelGuard.Settings(
+                window, failureRate, openFor, initialLimit, 1, maxLimit, timeout.dividedBy(2)), meterRegistry, observationRegistry));
+    }
+
+    public Map<String, ModelGuard> getGuards() {
+        return Map.copyOf(guards);
+    }
+}
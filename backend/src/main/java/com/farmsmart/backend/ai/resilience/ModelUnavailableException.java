@@ -0,0 +1,16 @@
+package com.farmsmart.backend.ai.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown without calling the model when its circuit is open or its
+ * concurrency limit is reached
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ModelUnavailableException extends RuntimeException {
+
+    public ModelUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,61 @@
+package com.farmsmart.backend.ai.resilience;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ChatLanguageModel decorator that sends every call through a ModelGuard
+ * and records its token usage
+ */
+public class ResilientChatModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel delegate;
+    private final ModelGuard guard;
+
+    public ResilientChatModel(ChatLanguageModel delegate, ModelGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        Response<AiMessage> response = guard.call(() -> delegate.generate(messages));
+        guard.recordTokens(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        Response<AiMessage> response = guard.call(() -> delegate.generate(messages, toolSpecifications));
+        guard.recordTokens(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        Response<AiMessage> response = guard.call(() -> delegate.generate(messages, toolSpecification));
+        guard.recordTokens(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        ChatResponse response = guard.call(() -> delegate.chat(chatRequest));
+        guard.recordTokens(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
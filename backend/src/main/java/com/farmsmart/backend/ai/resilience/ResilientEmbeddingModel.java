@@ -0,0 +1,32 @@
+package com.farmsmart.backend.ai.resilience;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * EmbeddingModel decorator that sends every call through a ModelGuard
+ */
+public class ResilientEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final ModelGuard guard;
+
+    public ResilientEmbeddingModel(EmbeddingModel delegate, ModelGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return guard.call(() -> delegate.embedAll(textSegments));
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
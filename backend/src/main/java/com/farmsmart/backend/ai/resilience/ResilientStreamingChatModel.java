@@ -0,0 +1,77 @@
+package com.farmsmart.backend.ai.resilience;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * StreamingChatLanguageModel decorator. Admission is checked before the
+ * stream starts; the outcome is reported when it completes or fails.
+ */
+public class ResilientStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final StreamingChatLanguageModel delegate;
+    private final ModelGuard guard;
+
+    public ResilientStreamingChatModel(StreamingChatLanguageModel delegate, ModelGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        ModelGuard.Permit permit = guard.acquire();
+        start(permit, () -> delegate.generate(messages, guarded(guard, permit, handler)));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        ModelGuard.Permit permit = guard.acquire();
+        start(permit, () -> delegate.generate(messages, toolSpecifications, guarded(guard, permit, handler)));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        ModelGuard.Permit permit = guard.acquire();
+        start(permit, () -> delegate.generate(messages, toolSpecification, guarded(guard, permit, handler)));
+    }
+
+    private static void start(ModelGuard.Permit permit, Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            permit.failure(e);
+            throw e;
+        }
+    }
+
+    private static StreamingResponseHandler<AiMessage> guarded(ModelGuard guard, ModelGuard.Permit permit,
+                                                               StreamingResponseHandler<AiMessage> handler) {
+        return new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                handler.onNext(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                permit.success();
+                guard.recordTokens(response.tokenUsage());
+                handler.onComplete(response);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                permit.failure(error);
+                handler.onError(error);
+            }
+        };
+    }
+}
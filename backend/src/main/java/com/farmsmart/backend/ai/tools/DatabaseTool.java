@@ -2,11 +2,20 @@ package com.farmsmart.backend.ai.tools;
 
 import com.farmsmart.backend.ai.intent.IntentClassifier;
 import com.farmsmart.backend.ai.intent.IntentRequest;
+import com.farmsmart.backend.ai.memory.AssistantChatMemoryProvider;
 import com.farmsmart.backend.ai.query.QueryPlanner;
 import com.farmsmart.backend.ai.query.QueryResult;
+import com.farmsmart.backend.ai.query.ResultCompactor;
+import com.farmsmart.backend.ai.observation.AssistantObservations;
 import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Intent-based database query tool for the Farm Assistant AI.
  * 
@@ -15,21 +24,30 @@ import org.springframework.stereotype.Component;
  * 
  * Flow:
  * 1. LLM describes what it wants to know (intent + entities JSON)
- * 2. IntentClassifier parses the request
- * 3. QueryPlanner executes the appropriate SQL template
- * 4. Results are returned to LLM for natural language response
+ * 2. IntentClassifier parses the request into one or more intents
+ * 3. QueryPlanner executes the appropriate SQL template(s), in parallel when
+ *    the description asks several things at once
+ * 4. ResultCompactor formats the rows within the token budget
+ * 5. Results are returned to LLM for natural language response
  * 
  * The LLM NEVER sees or generates SQL.
  */
 @Component
 public class DatabaseTool {
 
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseTool.class);
+
     private final IntentClassifier intentClassifier;
     private final QueryPlanner queryPlanner;
+    private final ResultCompactor resultCompactor;
+    private final AssistantObservations observations;
 
-    public DatabaseTool(IntentClassifier intentClassifier, QueryPlanner queryPlanner) {
+    public DatabaseTool(IntentClassifier intentClassifier, QueryPlanner queryPlanner, ResultCompactor resultCompactor,
+                        AssistantObservations observations) {
         this.intentClassifier = intentClassifier;
         this.queryPlanner = queryPlanner;
+        this.resultCompactor = resultCompactor;
+        this.observations = observations;
     }
 
     @Tool("""
@@ -44,28 +62,38 @@ public class DatabaseTool {
         - "Find all low stock products"
         - "Get credit balance for customer John Doe"
         - "Show recent sales"
+        - "Show recent sales and who has overdue credit"
+        
+        If you need several pieces of data, ask for all of them in ONE call
+        (e.g. "stock of Flu Vaccine and credit balance of John Doe") instead
+        of calling me once per question; each part is answered in its own
+        numbered section.
         
-        I will return the data as structured results.
+        I will return the data as a table: a header line with the column names,
+        then one line per row with values separated by " | ". Long results end
+        with totals over all rows instead of listing every row.
         """)
-    public String queryDatabase(String queryDescription) {
+    public String queryDatabase(String queryDescription, @ToolMemoryId Object memoryId) {
         try {
-            System.out.println("🛠️ DatabaseTool: Received query description: " + queryDescription);
+            // The memory id was built on the request thread and names the user who asked
+            UUID userId = AssistantChatMemoryProvider.userId(memoryId);
+            logger.debug("Received query description: {}", queryDescription);
             
-            // Step 1: Classify the intent
-            IntentRequest intentRequest = intentClassifier.classify(queryDescription);
+            // Step 1: Classify the intent(s)
+            List<IntentRequest> intentRequests = intentClassifier.classifyAll(queryDescription);
             
-            // Step 2: Execute the query using the planner
-            QueryResult result = queryPlanner.execute(intentRequest);
+            // Step 2: Execute the queries using the planner
+            QueryResult result = queryPlanner.executeAll(intentRequests, userId);
             
-            // Step 3: Format and return results
-            String formattedResult = result.toFormattedString();
-            System.out.println("✅ DatabaseTool: Returning results: " + formattedResult);
+            // Step 3: Format within the token budget and return results
+            String formattedResult = observations.stage(AssistantObservations.Stage.FORMAT, intentRequests,
+                    () -> resultCompactor.compact(result));
+            logger.debug("Returning {} characters for {} rows", formattedResult.length(), result.getResultCount());
             
             return formattedResult;
             
         } catch (Exception e) {
-            System.err.println("❌ DatabaseTool: Error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Database query failed: {}", e.getMessage(), e);
             return "Error querying database: " + e.getMessage();
         }
     }
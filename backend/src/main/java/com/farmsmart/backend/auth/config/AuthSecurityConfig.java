@@ -3,7 +3,10 @@ package com.farmsmart.backend.auth.config;
 import com.farmsmart.backend.auth.security.CustomUserDetailsService;
 import com.farmsmart.backend.auth.security.JwtAuthenticationFilter;
 import com.farmsmart.backend.auth.security.OAuth2SuccessHandler;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -55,6 +58,8 @@ public class AuthSecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
+                // Async re-dispatches of already-authorized requests (SSE, streaming)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 // Public auth endpoints
                 .requestMatchers("/api/auth/login", "/api/auth/signup", "/api/auth/verify-2fa", 
                                 "/api/auth/refresh", "/api/auth/invitations/validate/**").permitAll()
@@ -64,6 +69,8 @@ public class AuthSecurityConfig {
                 .requestMatchers("/oauth2/**", "/login/**").permitAll()
                 // Dev endpoints (REMOVE IN PRODUCTION)
                 .requestMatchers("/api/dev/**").permitAll()
+                // Actuator diagnostics (metrics, assistant traces with user queries) for admins only
+                .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class)).hasAnyRole("OWNER", "ADMIN")
                 // All other requests require authentication
                 .anyRequest().authenticated()
             )
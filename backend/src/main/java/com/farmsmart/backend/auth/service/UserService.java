@@ -4,6 +4,7 @@ import com.farmsmart.backend.auth.dto.AuthenticatedUser;
 import com.farmsmart.backend.auth.dto.response.UserInfoResponse;
 import com.farmsmart.backend.auth.entity.User;
 import com.farmsmart.backend.auth.repository.UserRepository;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -42,6 +43,18 @@ public class UserService {
         throw new IllegalStateException("No authenticated user found");
     }
 
+    /**
+     * Id of the current authenticated user.
+     * Empty outside an authenticated request (scheduled jobs, startup tasks).
+     */
+    public Optional<UUID> findCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetails details) {
+            return userRepository.findByEmail(details.getUsername()).map(User::getId);
+        }
+        return Optional.empty();
+    }
+
     /**
      * Get user info for /me endpoint.
      */
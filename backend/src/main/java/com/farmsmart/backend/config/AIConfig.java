@@ -1,25 +1,47 @@
 package com.farmsmart.backend.config;
 
+import com.farmsmart.backend.ai.intent.IntentClassification;
+import com.farmsmart.backend.ai.resilience.ModelGuardRegistry;
+import com.farmsmart.backend.ai.resilience.ResilientChatModel;
+import com.farmsmart.backend.ai.resilience.ResilientEmbeddingModel;
+import com.farmsmart.backend.ai.resilience.ResilientStreamingChatModel;
+import com.farmsmart.backend.dto.BillAnalysisResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.googleai.GoogleAiGeminiStreamingChatModel;
 import dev.langchain4j.model.googleai.GoogleAiEmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.pgvector.PgVectorEmbeddingStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * Configuration for AI-related beans.
  * 
  * This includes:
  * - ChatLanguageModel (Google AI)
+ * - StreamingChatLanguageModel (Google AI, token streaming for the assistant)
  * - NamedParameterJdbcTemplate (for parameterized SQL queries)
+ * - ObjectReaders for the JSON answers of the classifier and vision model:
+ *   immutable and thread-safe, so they are configured once and shared
+ * 
+ * Every model is built with a timeout and a small retry budget, and wrapped in
+ * its own ModelGuard (circuit breaker + adaptive concurrency limit), so one
+ * slow model fails fast instead of pinning threads across the app.
+ * 
+ * With the fake-llm profile the models come from FakeAIConfig instead.
  */
 @Configuration
 public class AIConfig {
@@ -27,30 +49,76 @@ public class AIConfig {
     @Value("${google.ai.api.key}")
     private String apiKey;
 
+    @Value("${app.ai.model.max-retries:1}")
+    private int maxRetries;
+
+    @Value("${app.ai.model.timeout.chat:30s}")
+    private Duration chatTimeout;
+
+    @Value("${app.ai.model.timeout.vision:90s}")
+    private Duration visionTimeout;
+
+    @Value("${app.ai.model.timeout.embedding:10s}")
+    private Duration embeddingTimeout;
+
     @Bean
-    public ChatLanguageModel chatModel() {
-        return GoogleAiGeminiChatModel.builder()
+    @Profile("!fake-llm")
+    public ChatLanguageModel chatModel(ModelGuardRegistry guards) {
+        return new ResilientChatModel(GoogleAiGeminiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("gemini-2.5-flash")
                 .temperature(0.0)
-                .build();
+                .timeout(chatTimeout)
+                .maxRetries(maxRetries)
+                .build(), guards.guard("chat", chatTimeout));
+    }
+
+    @Bean
+    @Profile("!fake-llm")
+    public StreamingChatLanguageModel streamingChatModel(ModelGuardRegistry guards) {
+        return new ResilientStreamingChatModel(GoogleAiGeminiStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .modelName("gemini-2.5-flash")
+                .temperature(0.0)
+                .timeout(chatTimeout)
+                .maxRetries(maxRetries)
+                .build(), guards.guard("chat-stream", chatTimeout));
     }
 
     @Bean("visionModel")
-    public ChatLanguageModel visionModel() {
-        return GoogleAiGeminiChatModel.builder()
+    @Profile("!fake-llm")
+    public ChatLanguageModel visionModel(ModelGuardRegistry guards) {
+        return new ResilientChatModel(GoogleAiGeminiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("gemini-2.5-pro")
                 .temperature(0.1)
-                .build();
+                .timeout(visionTimeout)
+                .maxRetries(maxRetries)
+                .build(), guards.guard("vision", visionTimeout));
     }
 
     @Bean
-    public EmbeddingModel embeddingModel() {
-        return GoogleAiEmbeddingModel.builder()
+    @Profile("!fake-llm")
+    public EmbeddingModel embeddingModel(ModelGuardRegistry guards) {
+        return new ResilientEmbeddingModel(GoogleAiEmbeddingModel.builder()
                 .apiKey(apiKey)
                 .modelName("text-embedding-004")
-                .build();
+                .timeout(embeddingTimeout)
+                .maxRetries(maxRetries)
+                .build(), guards.guard("embedding", embeddingTimeout));
+    }
+
+    @Bean
+    public ObjectReader intentClassificationReader(ObjectMapper objectMapper) {
+        return objectMapper.readerFor(IntentClassification.class)
+                .with(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_USING_DEFAULT_VALUE)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Bean
+    public ObjectReader billAnalysisReader(ObjectMapper objectMapper) {
+        return objectMapper.readerFor(BillAnalysisResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
     @Bean
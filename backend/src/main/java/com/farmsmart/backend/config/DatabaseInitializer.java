@@ -33,5 +33,148 @@ public class DatabaseInitializer implements CommandLineRunner {
             System.err.println("Failed to enable 'vector' extension. Ensure pgvector is installed on the DB server.");
             e.printStackTrace();
         }
+
+        try {
+            // Partial indexes: open and overdue credit are a small slice of credit_ledger
+            jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_credit_ledger_open_due
+                ON credit_ledger (due_date) WHERE status IN ('ACTIVE', 'PARTIAL');
+            """);
+            jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_credit_ledger_overdue
+                ON credit_ledger (due_date) WHERE status = 'OVERDUE';
+            """);
+            System.out.println("Credit ledger partial indexes checked/created.");
+        } catch (Exception e) {
+            System.err.println("Failed to create credit ledger indexes.");
+            e.printStackTrace();
+        }
+
+        try {
+            // Before the settlement engine, createPurchase paid a farmer's negative balance out
+            // on delivery (PROFIT_SETTLEMENT without remarks) but left the delivery's CREDIT row
+            // open. Close the rows such a payout already covered so a settlement run does not
+            // pay them again. Engine payouts carry remarks, so this is a no-op once done.
+            int closed = jdbcTemplate.update("""
+                UPDATE credit_ledger cl
+                SET current_balance = 0, status = 'CLEARED'
+                FROM purchase p
+                WHERE cl.purchase_id = p.id
+                  AND cl.status = 'CREDIT'
+                  AND EXISTS (
+                      SELECT 1 FROM payment_transaction t
+                      WHERE t.customer_id = cl.customer_id
+                        AND t.payment_method = 'PROFIT_SETTLEMENT'
+                        AND t.remarks IS NULL
+                        AND t.payment_date >= p.purchase_date
+                  );
+            """);
+            System.out.println("Closed " + closed + " delivery credits paid out before settlement cycles.");
+        } catch (Exception e) {
+            System.err.println("Failed to close pre-settlement delivery credits.");
+            e.printStackTrace();
+        }
+
+        try {
+            // Per-day, per-cashier, per-method payment totals, maintained on insert.
+            // payment_transaction is insert-only, so an AFTER INSERT trigger keeps it exact.
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS payment_daily_rollup (
+                    payment_day date NOT NULL,
+                    user_id uuid NOT NULL,
+                    payment_method varchar(50) NOT NULL,
+                    txn_count bigint NOT NULL DEFAULT 0,
+                    total_amount numeric(19, 2) NOT NULL DEFAULT 0,
+                    PRIMARY KEY (payment_day, user_id, payment_method)
+                );
+            """);
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION payment_daily_rollup_on_insert() RETURNS trigger AS $$
+                BEGIN
+                    INSERT INTO payment_daily_rollup (payment_day, user_id, payment_method, txn_count, total_amount)
+                    VALUES (COALESCE(NEW.payment_date, now())::date,
+                            COALESCE(NEW.recorded_by_user_id, '00000000-0000-0000-0000-000000000000'::uuid),
+                            COALESCE(NEW.payment_method, 'UNKNOWN'),
+                            1,
+                            COALESCE(NEW.amount_paid, 0))
+                    ON CONFLICT (payment_day, user_id, payment_method) DO UPDATE
+                    SET txn_count = payment_daily_rollup.txn_count + 1,
+                        total_amount = payment_daily_rollup.total_amount + EXCLUDED.total_amount;
+                    RETURN NEW;
+                END;
+                $$ LANGUAGE plpgsql;
+            """);
+            // First install: backfill existing payments and attach the trigger atomically
+            jdbcTemplate.execute("""
+                DO $$
+                BEGIN
+                    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'trg_payment_daily_rollup') THEN
+                        LOCK TABLE payment_transaction IN SHARE ROW EXCLUSIVE MODE;
+                        INSERT INTO payment_daily_rollup (payment_day, user_id, payment_method, txn_count, total_amount)
+                        SELECT COALESCE(payment_date, now())::date,
+                               COALESCE(recorded_by_user_id, '00000000-0000-0000-0000-000000000000'::uuid),
+                               COALESCE(payment_method, 'UNKNOWN'),
+                               COUNT(*),
+                               COALESCE(SUM(amount_paid), 0)
+                        FROM payment_transaction
+                        GROUP BY 1, 2, 3
+                        ON CONFLICT DO NOTHING;
+                        CREATE TRIGGER trg_payment_daily_rollup
+                            AFTER INSERT ON payment_transaction
+                            FOR EACH ROW EXECUTE FUNCTION payment_daily_rollup_on_insert();
+                    END IF;
+                END;
+                $$;
+            """);
+            System.out.println("Payment daily rollup checked/created.");
+        } catch (Exception e) {
+            System.err.println("Failed to create payment daily rollup.");
+            e.printStackTrace();
+        }
+
+        try {
+            // Assistant conversation history, used when app.ai.chat-memory.persistent=true
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS assistant_chat_memory (
+                    memory_id varchar(200) PRIMARY KEY,
+                    messages text NOT NULL,
+                    updated_at timestamptz NOT NULL DEFAULT now()
+                );
+            """);
+            System.out.println("Table 'assistant_chat_memory' checked/created.");
+        } catch (Exception e) {
+            System.err.println("Failed to create assistant chat memory table.");
+            e.printStackTrace();
+        }
+
+        try {
+            // Assistant query audit trail, appended in batches by QueryAuditWriter
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS assistant_query_audit (
+                    id bigserial PRIMARY KEY,
+                    executed_at timestamp NOT NULL,
+                    user_id uuid,
+                    intent varchar(64) NOT NULL,
+                    source varchar(16) NOT NULL,
+                    original_query text,
+                    parameters text,
+                    executed_sql text,
+                    row_count integer NOT NULL,
+                    duration_us bigint NOT NULL,
+                    error text
+                );
+            """);
+            jdbcTemplate.execute("""
+                ALTER TABLE assistant_query_audit ADD COLUMN IF NOT EXISTS user_id uuid;
+            """);
+            jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_assistant_query_audit_executed_at
+                ON assistant_query_audit (executed_at);
+            """);
+            System.out.println("Table 'assistant_query_audit' checked/created.");
+        } catch (Exception e) {
+            System.err.println("Failed to create assistant query audit table.");
+            e.printStackTrace();
+        }
     }
 }
@@ -0,0 +1,107 @@
+package com.farmsmart.backend.config;
+
+import com.farmsmart.backend.ai.fake.FakeChatModel;
+import com.farmsmart.backend.ai.fake.FakeEmbeddingModel;
+import com.farmsmart.backend.ai.fake.FakeLatency;
+import com.farmsmart.backend.ai.fake.FakeLlmScript;
+import com.farmsmart.backend.ai.fake.FakeStreamingChatModel;
+import com.farmsmart.backend.ai.resilience.ModelGuardRegistry;
+import com.farmsmart.backend.ai.resilience.ResilientChatModel;
+import com.farmsmart.backend.ai.resilience.ResilientEmbeddingModel;
+import com.farmsmart.backend.ai.resilience.ResilientStreamingChatModel;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Fake models for the fake-llm profile: scripted, deterministic answers with
+ * configurable latency, so the assistant can be load-tested without Gemini.
+ * 
+ * The fakes are wrapped in the same ModelGuards as the real models (see
+ * AIConfig), so circuit breakers and concurrency limits are exercised too.
+ * Settings: app.ai.fake.*.
+ */
+@Configuration
+@Profile("fake-llm")
+public class FakeAIConfig {
+
+    @Value("${app.ai.fake.script:classpath:ai/fake-llm-script.txt}")
+    private String scriptLocation;
+
+    @Value("${app.ai.fake.chat.median:800ms}")
+    private Duration chatMedian;
+
+    @Value("${app.ai.fake.chat.p99:4s}")
+    private Duration chatP99;
+
+    @Value("${app.ai.fake.embedding.median:60ms}")
+    private Duration embeddingMedian;
+
+    @Value("${app.ai.fake.embedding.p99:300ms}")
+    private Duration embeddingP99;
+
+    @Value("${app.ai.fake.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${app.ai.fake.token-delay-ms:15}")
+    private long tokenDelayMs;
+
+    @Value("${pgvector.embedding.dimension:768}")
+    private int dimension;
+
+    @Value("${app.ai.model.timeout.chat:30s}")
+    private Duration chatTimeout;
+
+    @Value("${app.ai.model.timeout.vision:90s}")
+    private Duration visionTimeout;
+
+    @Value("${app.ai.model.timeout.embedding:10s}")
+    private Duration embeddingTimeout;
+
+    @Bean
+    public FakeLlmScript fakeLlmScript(ResourceLoader resourceLoader) throws IOException {
+        try (InputStream input = resourceLoader.getResource(scriptLocation).getInputStream()) {
+            FakeLlmScript script = FakeLlmScript.load(input);
+            System.out.println("🧪 FakeAIConfig: Loaded " + script.size() + " scripted responses from " + scriptLocation);
+            return script;
+        }
+    }
+
+    @Bean
+    public ChatLanguageModel chatModel(FakeLlmScript script, ModelGuardRegistry guards) {
+        return new ResilientChatModel(new FakeChatModel(script, chatLatency()), guards.guard("chat", chatTimeout));
+    }
+
+    @Bean
+    public StreamingChatLanguageModel streamingChatModel(FakeLlmScript script, ModelGuardRegistry guards) {
+        FakeLatency latency = chatLatency();
+        return new ResilientStreamingChatModel(
+                new FakeStreamingChatModel(new FakeChatModel(script, latency), latency, tokenDelayMs),
+                guards.guard("chat-stream", chatTimeout));
+    }
+
+    @Bean("visionModel")
+    public ChatLanguageModel visionModel(FakeLlmScript script, ModelGuardRegistry guards) {
+        return new ResilientChatModel(new FakeChatModel(script, chatLatency()), guards.guard("vision", visionTimeout));
+    }
+
+    @Bean
+    public EmbeddingModel embeddingModel(ModelGuardRegistry guards) {
+        return new ResilientEmbeddingModel(
+                new FakeEmbeddingModel(dimension, new FakeLatency(embeddingMedian, embeddingP99, failureRate)),
+                guards.guard("embedding", embeddingTimeout));
+    }
+
+    private FakeLatency chatLatency() {
+        return new FakeLatency(chatMedian, chatP99, failureRate);
+    }
+}
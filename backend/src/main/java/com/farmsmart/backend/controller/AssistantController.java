@@ -1,19 +1,29 @@
 package com.farmsmart.backend.controller;
 
+import com.farmsmart.backend.ai.resilience.ModelUnavailableException;
 import com.farmsmart.backend.service.DocumentIngestionService;
 import com.farmsmart.backend.service.FarmAssistantService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/assistant")
 public class AssistantController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+
     private final FarmAssistantService assistantService;
     private final DocumentIngestionService ingestionService;
 
@@ -22,16 +32,94 @@ public class AssistantController {
         this.ingestionService = ingestionService;
     }
 
+    /**
+     * Runs on the assistant executor; the request thread is released while the model works
+     */
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, String>> chat(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> chat(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        String memoryId = assistantService.memoryIdFor(request.get("conversationId"));
+        return assistantService.chatAsync(memoryId, message)
+                .thenApply(reply -> ResponseEntity.ok(Map.of("reply", reply)))
+                .exceptionally(AssistantController::chatFailure);
+    }
+
+    private static ResponseEntity<Map<String, String>> chatFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("reply", "The assistant is busy right now. Please try again in a moment."));
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.ok(Map.of("reply", "The assistant took too long to answer. Please try again."));
+        }
+        cause.printStackTrace();
+        return ResponseEntity.ok(Map.of("reply", "Critical Backend Error: " + cause.getMessage()));
+    }
+
+    /**
+     * Server-Sent Events chat, admitted through the same bulkhead as /chat. Events:
+     * - start: sent immediately
+     * - tool:  {"tool": name, "arguments": json} after each tool call completes
+     * - token: partial reply text
+     * - done:  {"reply": full text}
+     * - error: {"message": ..., "status": 503 busy | 504 timed out | 500}
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody Map<String, String> request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
         try {
-            String message = request.get("message");
-            String reply = assistantService.chat(message);
-            return ResponseEntity.ok(Map.of("reply", reply));
+            emitter.send(SseEmitter.event().name("start").data(Map.of("status", "thinking")));
+
+            String memoryId = assistantService.memoryIdFor(request.get("conversationId"));
+            assistantService.chatStreamAsync(memoryId, request.get("message"), stream -> stream
+                            .onNext(token -> send(emitter, "token", token))
+                            .onToolExecuted(execution -> send(emitter, "tool", Map.of(
+                                    "tool", execution.request().name(),
+                                    "arguments", String.valueOf(execution.request().arguments())))))
+                    .thenAccept(response -> {
+                        send(emitter, "done", Map.of("reply", String.valueOf(response.content().text())));
+                        emitter.complete();
+                    })
+                    .exceptionally(error -> {
+                        streamFailure(emitter, error);
+                        return null;
+                    });
         } catch (Throwable e) {
-            e.printStackTrace();
-            return ResponseEntity.ok(Map.of("reply", "Critical Backend Error: " + e.getMessage()));
+            streamFailure(emitter, e);
         }
+        return emitter;
+    }
+
+    private static void streamFailure(SseEmitter emitter, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException || cause instanceof ModelUnavailableException) {
+            send(emitter, "error", Map.of("status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "message", "The assistant is busy right now. Please try again in a moment."));
+        } else if (cause instanceof TimeoutException) {
+            send(emitter, "error", Map.of("status", HttpStatus.GATEWAY_TIMEOUT.value(),
+                    "message", "The assistant took too long to answer. Please try again."));
+        } else {
+            cause.printStackTrace();
+            send(emitter, "error", Map.of("status", HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "message", String.valueOf(cause.getMessage())));
+        }
+        emitter.complete();
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the model keeps streaming into the void until it finishes
+            emitter.completeWithError(e);
+        }
+    }
+
+    @DeleteMapping("/conversations/{conversationId}")
+    public ResponseEntity<Void> clearConversation(@PathVariable String conversationId) {
+        assistantService.clearConversation(assistantService.memoryIdFor(conversationId));
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/upload")
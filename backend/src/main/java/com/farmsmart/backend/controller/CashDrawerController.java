@@ -0,0 +1,35 @@
+package com.farmsmart.backend.controller;
+
+import com.farmsmart.backend.dto.CashDrawerCloseRequest;
+import com.farmsmart.backend.dto.CashDrawerSummaryDTO;
+import com.farmsmart.backend.entity.CashDrawerCloseout;
+import com.farmsmart.backend.service.CashDrawerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/finance/cash-drawer")
+public class CashDrawerController {
+
+    @Autowired private CashDrawerService cashDrawerService;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT', 'SALES', 'STAFF')")
+    public ResponseEntity<CashDrawerSummaryDTO> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) UUID userId) {
+        return ResponseEntity.ok(cashDrawerService.getSummary(date, userId));
+    }
+
+    @PostMapping("/close")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT', 'SALES', 'STAFF')")
+    public ResponseEntity<CashDrawerCloseout> close(@RequestBody @jakarta.validation.Valid CashDrawerCloseRequest request) {
+        return ResponseEntity.ok(cashDrawerService.closeDrawer(request));
+    }
+}
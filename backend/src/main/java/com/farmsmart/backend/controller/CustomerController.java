@@ -31,4 +31,10 @@ public class CustomerController {
     public java.util.Map<String, Object> getProfit(@PathVariable java.util.UUID id) {
         return financeService.getFarmerProfit(id);
     }
+
+    @GetMapping("/farmers/profit")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
+    public List<com.farmsmart.backend.dto.FarmerProfitDTO> getFarmerProfits() {
+        return financeService.getAllFarmerProfits();
+    }
 }
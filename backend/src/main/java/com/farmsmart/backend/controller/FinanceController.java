@@ -1,9 +1,15 @@
 package com.farmsmart.backend.controller;
 
+import com.farmsmart.backend.dto.SettlementRunRequest;
 import com.farmsmart.backend.dto.TransactionFilterDTO;
+import com.farmsmart.backend.entity.CustomerReconciliation;
+import com.farmsmart.backend.entity.ReconciliationRun;
+import com.farmsmart.backend.entity.SettlementRun;
 import com.farmsmart.backend.dto.TransactionReportDTO;
 import com.farmsmart.backend.service.FinanceService;
+import com.farmsmart.backend.service.ReconciliationService;
 import com.farmsmart.backend.service.ReportService;
+import com.farmsmart.backend.service.SettlementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +27,8 @@ public class FinanceController {
     @Autowired private FinanceService financeService;
     @Autowired private ReportService reportService;
     @Autowired private com.farmsmart.backend.service.PaymentSettlementService paymentSettlementService;
+    @Autowired private SettlementService settlementService;
+    @Autowired private ReconciliationService reconciliationService;
 
     @PostMapping("/payments/settle")
     @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
@@ -36,6 +44,30 @@ public class FinanceController {
         return ResponseEntity.ok(paymentSettlementService.getUnpaidSalesForCustomer(customerId));
     }
 
+    @PostMapping("/settlements/run")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
+    public ResponseEntity<SettlementRun> runSettlement(@RequestBody @jakarta.validation.Valid SettlementRunRequest request) {
+        return ResponseEntity.ok(settlementService.runSettlement(request));
+    }
+
+    @GetMapping("/settlements")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
+    public ResponseEntity<java.util.List<SettlementRun>> getSettlementRuns() {
+        return ResponseEntity.ok(settlementService.getSettlementRuns());
+    }
+
+    @PostMapping("/reconciliation/run")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'ACCOUNTANT')")
+    public ResponseEntity<ReconciliationRun> runReconciliation(@RequestParam(defaultValue = "false") boolean full) {
+        return ResponseEntity.ok(reconciliationService.runReconciliation(full));
+    }
+
+    @GetMapping("/reconciliation/drift")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
+    public ResponseEntity<java.util.List<CustomerReconciliation>> getBalanceDrift() {
+        return ResponseEntity.ok(reconciliationService.getDriftedCustomers());
+    }
+
     @GetMapping("/report")
     @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'MANAGER', 'ACCOUNTANT')")
     public Map<String, Object> getReport() {
@@ -0,0 +1,20 @@
+package com.farmsmart.backend.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+public class CashDrawerCloseRequest {
+    private LocalDate businessDate; // Defaults to today
+    private UUID userId; // Defaults to the current user
+
+    @NotNull(message = "Counted cash is required")
+    @PositiveOrZero(message = "Counted cash cannot be negative")
+    private BigDecimal countedCash;
+
+    private String remarks;
+}
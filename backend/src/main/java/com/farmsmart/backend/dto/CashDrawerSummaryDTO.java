@@ -0,0 +1,20 @@
+package com.farmsmart.backend.dto;
+
+import com.farmsmart.backend.entity.CashDrawerCloseout;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class CashDrawerSummaryDTO {
+    private LocalDate businessDate;
+    private UUID userId;
+    private List<PaymentMethodTotalDTO> methods = new ArrayList<>();
+    private Long transactionCount = 0L;
+    private BigDecimal totalCollected = BigDecimal.ZERO;
+    private BigDecimal expectedCash = BigDecimal.ZERO;
+    private CashDrawerCloseout closeout; // Null until the drawer is closed
+}
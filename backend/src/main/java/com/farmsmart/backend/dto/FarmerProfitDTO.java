@@ -0,0 +1,14 @@
+package com.farmsmart.backend.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+public class FarmerProfitDTO {
+    private UUID customerId;
+    private String customerName;
+    private BigDecimal deliveriesValue; // Purchases from the farmer
+    private BigDecimal inputsCost;      // Sales to the farmer
+    private BigDecimal profit;
+}
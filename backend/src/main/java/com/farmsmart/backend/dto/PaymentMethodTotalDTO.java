@@ -0,0 +1,15 @@
+package com.farmsmart.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentMethodTotalDTO {
+    private String paymentMethod;
+    private Long transactionCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,14 @@
+package com.farmsmart.backend.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+public class SettlementRunRequest {
+    @NotNull(message = "Cycle start is required")
+    private LocalDate cycleStart;
+
+    @NotNull(message = "Cycle end is required")
+    private LocalDate cycleEnd; // Inclusive
+}
@@ -0,0 +1,41 @@
+package com.farmsmart.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"business_date", "user_id"}))
+@Data
+public class CashDrawerCloseout {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private LocalDate businessDate;
+
+    // Cashier whose drawer was closed
+    @Column(nullable = false)
+    private UUID userId;
+
+    // All methods collected by the cashier that day
+    private BigDecimal totalCollected = BigDecimal.ZERO;
+
+    // CASH collected according to the payment rollup
+    private BigDecimal expectedCash = BigDecimal.ZERO;
+
+    private BigDecimal countedCash = BigDecimal.ZERO;
+
+    // countedCash - expectedCash: negative = short, positive = over
+    private BigDecimal variance = BigDecimal.ZERO;
+
+    private String remarks;
+
+    private UUID closedByUserId;
+
+    private LocalDateTime closedAt;
+}
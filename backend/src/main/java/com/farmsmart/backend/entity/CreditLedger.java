@@ -7,6 +7,7 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = @Index(name = "idx_credit_ledger_customer_id", columnList = "customer_id"))
 @Data
 public class CreditLedger {
     @Id
@@ -27,7 +28,7 @@ public class CreditLedger {
     
     private LocalDate dueDate;
     
-    // ACTIVE / CLEARED
+    // ACTIVE / PARTIAL / OVERDUE / CREDIT / CLEARED
     private String status;
     
     private String remarks;
@@ -0,0 +1,42 @@
+package com.farmsmart.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Last verified balance snapshot of one customer.
+ *
+ * A customer's balance is held in three places that must agree:
+ * - Customer.currentTotalBalance
+ * - SUM(Sale.remainingBalance)
+ * - SUM(CreditLedger.currentBalance) of entries that are not CLEARED
+ * The checksum covers all three, so an unchanged customer is cheap to confirm.
+ */
+@Entity
+@Data
+public class CustomerReconciliation {
+    @Id
+    @Column(name = "customer_id")
+    private UUID customerId;
+
+    @ManyToOne
+    @JoinColumn(name = "customer_id", insertable = false, updatable = false)
+    private Customer customer;
+
+    private BigDecimal customerBalance;
+    private BigDecimal salesRemaining;
+    private BigDecimal ledgerOpenTotal;     // All open entries (farmer credits are negative)
+    private BigDecimal ledgerSaleOpenTotal; // Open entries linked to a sale
+
+    private BigDecimal balanceDrift; // customerBalance - ledgerOpenTotal
+    private BigDecimal salesDrift;   // salesRemaining - ledgerSaleOpenTotal
+    private boolean drifted;
+
+    private Long checksum;
+
+    private LocalDateTime verifiedAt;
+    private LocalDateTime changedAt; // Last time the checksum changed
+}
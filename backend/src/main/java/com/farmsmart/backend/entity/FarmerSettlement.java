@@ -0,0 +1,52 @@
+package com.farmsmart.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+
+/**
+ * Net result of one farmer within a settlement run.
+ * Deliveries (credit entries) are offset against inputs (debt entries);
+ * any surplus is paid out, any shortfall stays open as debt.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_farmer_settlement_run_customer", columnNames = {"run_id", "customer_id"}))
+@Data
+public class FarmerSettlement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "run_id")
+    @JsonBackReference
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private SettlementRun run;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    private BigDecimal deliveriesValue; // Open credit netted this cycle
+    private BigDecimal inputsCost;      // Open debt netted this cycle
+    private BigDecimal offsetAmount;    // Debt paid off by deliveries
+    private BigDecimal payoutAmount;    // Surplus paid to the farmer
+    private BigDecimal carriedForwardDebt;
+    private Integer ledgerEntriesCleared;
+
+    @OneToOne
+    private PaymentTransaction payoutTransaction; // Null when nothing was paid out
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
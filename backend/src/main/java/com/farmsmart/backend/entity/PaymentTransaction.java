@@ -8,6 +8,7 @@ import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
+@Table(indexes = @Index(name = "idx_payment_transaction_payment_date", columnList = "payment_date"))
 @Data
 public class PaymentTransaction {
     @Id
@@ -30,6 +31,9 @@ public class PaymentTransaction {
     
     private LocalDateTime paymentDate;
 
+    // User who took the payment (cash-drawer owner); null for system payments
+    private UUID recordedByUserId;
+
     @PrePersist
     protected void onCreate() {
         paymentDate = LocalDateTime.now();
@@ -8,6 +8,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_purchase_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_purchase_purchase_date", columnList = "purchase_date")
+})
 @Data
 public class Purchase {
     @Id
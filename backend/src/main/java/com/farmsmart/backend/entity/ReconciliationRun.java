@@ -0,0 +1,30 @@
+package com.farmsmart.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Data
+public class ReconciliationRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    // Full scan verifies every customer, incremental only those touched since the previous run
+    private boolean fullScan;
+
+    private Integer customersChecked = 0;
+    private Integer customersChanged = 0;
+    private Integer driftCount = 0;
+
+    // Sum of all per-customer checksums, rolled forward by incremental runs
+    private Long ledgerChecksum;
+
+    // Set on full scans: recomputed checksum differs from the rolled-forward one
+    private Boolean checksumMismatch;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -10,6 +10,10 @@ import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_sale_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_sale_created_at", columnList = "created_at")
+})
 @Data
 public class Sale {
     @Id
@@ -0,0 +1,58 @@
+package com.farmsmart.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+
+/**
+ * One contract-farming settlement cycle.
+ * A cycle is settled at most once - the unique (cycle_start, cycle_end)
+ * pair makes a repeated run return the existing result.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_settlement_run_cycle", columnNames = {"cycle_start", "cycle_end"}))
+@Data
+public class SettlementRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "cycle_start", nullable = false)
+    private LocalDate cycleStart;
+
+    // Inclusive - entries dated on this day belong to the cycle
+    @Column(name = "cycle_end", nullable = false)
+    private LocalDate cycleEnd;
+
+    // COMPLETED
+    private String status;
+
+    private Integer farmersSettled = 0;
+    private Integer ledgerEntriesCleared = 0;
+    private BigDecimal totalOffset = BigDecimal.ZERO;
+    private BigDecimal totalPayout = BigDecimal.ZERO;
+
+    @OneToMany(mappedBy = "run", cascade = CascadeType.ALL)
+    @JsonManagedReference
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<FarmerSettlement> settlements = new ArrayList<>();
+
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (startedAt == null) {
+            startedAt = LocalDateTime.now();
+        }
+    }
+}
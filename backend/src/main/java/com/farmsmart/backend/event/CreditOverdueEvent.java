@@ -0,0 +1,13 @@
+package com.farmsmart.backend.event;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Published once per customer when the overdue job moves their ledger
+ * entries to OVERDUE. Carries only the entries transitioned in that run.
+ */
+public record CreditOverdueEvent(
+        UUID customerId,
+        int entryCount,
+        BigDecimal overdueAmount) {}
@@ -0,0 +1,15 @@
+package com.farmsmart.backend.event;
+
+import java.util.Set;
+
+/**
+ * Published when rows in the given tables were inserted, updated or deleted.
+ * JPA writes are reported by EntityChangePublisher after commit; bulk JDBC
+ * writes publish it themselves. Table names are lower-case without schema.
+ */
+public record DataChangedEvent(Set<String> tables) {
+
+    public static DataChangedEvent of(String... tables) {
+        return new DataChangedEvent(Set.of(tables));
+    }
+}
@@ -0,0 +1,11 @@
+package com.farmsmart.backend.repository;
+
+import com.farmsmart.backend.entity.CashDrawerCloseout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CashDrawerCloseoutRepository extends JpaRepository<CashDrawerCloseout, UUID> {
+    Optional<CashDrawerCloseout> findByBusinessDateAndUserId(LocalDate businessDate, UUID userId);
+}
@@ -2,6 +2,10 @@ package com.farmsmart.backend.repository;
 
 import com.farmsmart.backend.entity.CreditLedger;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -9,4 +13,24 @@ public interface CreditLedgerRepository extends JpaRepository<CreditLedger, UUID
     List<CreditLedger> findByCustomerId(UUID customerId);
     
     List<CreditLedger> findByCustomerIdAndStatusInOrderByDueDateAsc(UUID customerId, List<String> statuses);
+
+    /**
+     * Open ledger entries of all FARMER customers whose sale or purchase happened
+     * before the cutoff, however old: a delivery from a gap between cycles or
+     * entered after its cycle was settled is still open and still owed. Loaded in
+     * one query (with customer, sale and purchase) so a settlement run does not
+     * issue per-farmer lookups.
+     */
+    @Query("""
+            SELECT cl FROM CreditLedger cl
+            JOIN FETCH cl.customer c
+            LEFT JOIN FETCH cl.sale s
+            LEFT JOIN FETCH cl.purchase p
+            WHERE c.customerType = 'FARMER'
+              AND cl.status IN :statuses
+              AND COALESCE(s.createdAt, p.purchaseDate) < :cutoff
+            ORDER BY c.id, cl.dueDate
+            """)
+    List<CreditLedger> findOpenFarmerEntriesBefore(@Param("statuses") List<String> statuses,
+                                                   @Param("cutoff") LocalDateTime cutoff);
 }
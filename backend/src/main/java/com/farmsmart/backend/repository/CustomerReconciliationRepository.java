@@ -0,0 +1,12 @@
+package com.farmsmart.backend.repository;
+
+import com.farmsmart.backend.entity.CustomerReconciliation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomerReconciliationRepository extends JpaRepository<CustomerReconciliation, UUID> {
+    List<CustomerReconciliation> findByDriftedTrueOrderByVerifiedAtDesc();
+
+    long countByDriftedTrue();
+}
@@ -2,8 +2,46 @@ package com.farmsmart.backend.repository;
 
 import com.farmsmart.backend.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     boolean existsByPhone(String phone);
+
+    /**
+     * Deliveries and inputs for every FARMER customer in a single statement.
+     * Each side is grouped by customer_id once and joined back, so the cost
+     * does not grow with one scan per farmer.
+     */
+    @Query(value = """
+            SELECT c.id AS customerId,
+                   c.name AS customerName,
+                   COALESCE(d.total, 0) AS deliveriesValue,
+                   COALESCE(i.total, 0) AS inputsCost
+            FROM customer c
+            LEFT JOIN (
+                SELECT customer_id, SUM(total_cost) AS total
+                FROM purchase
+                WHERE customer_id IS NOT NULL
+                GROUP BY customer_id
+            ) d ON d.customer_id = c.id
+            LEFT JOIN (
+                SELECT customer_id, SUM(total_bill_amount) AS total
+                FROM sale
+                GROUP BY customer_id
+            ) i ON i.customer_id = c.id
+            WHERE c.customer_type = 'FARMER'
+            ORDER BY c.name
+            """, nativeQuery = true)
+    List<FarmerProfitRow> findFarmerProfitTotals();
+
+    interface FarmerProfitRow {
+        UUID getCustomerId();
+        String getCustomerName();
+        BigDecimal getDeliveriesValue();
+        BigDecimal getInputsCost();
+    }
 }
@@ -2,6 +2,10 @@ package com.farmsmart.backend.repository;
 
 import com.farmsmart.backend.entity.Purchase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
 import java.util.UUID;
 
 
@@ -9,4 +13,8 @@ import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 public interface PurchaseRepository extends JpaRepository<Purchase, UUID>, JpaSpecificationExecutor<Purchase> {
+
+    // Uses idx_purchase_customer_id - value of all deliveries made by a farmer
+    @Query("SELECT COALESCE(SUM(p.totalCost), 0) FROM Purchase p WHERE p.customer.id = :customerId")
+    BigDecimal sumTotalCostByCustomerId(@Param("customerId") UUID customerId);
 }
@@ -0,0 +1,10 @@
+package com.farmsmart.backend.repository;
+
+import com.farmsmart.backend.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, UUID> {
+    Optional<ReconciliationRun> findFirstByCompletedAtIsNotNullOrderByStartedAtDesc();
+}
@@ -3,11 +3,19 @@ package com.farmsmart.backend.repository;
 import com.farmsmart.backend.entity.Sale;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
 public interface SaleRepository extends JpaRepository<Sale, UUID>, JpaSpecificationExecutor<Sale> {
     List<Sale> findByCustomerIdAndPaymentStatusInOrderByCreatedAtAsc(UUID customerId, List<String> statuses);
     
+    // Uses idx_sale_customer_id - total billed to a customer (inputs for a farmer)
+    @Query("SELECT COALESCE(SUM(s.totalBillAmount), 0) FROM Sale s WHERE s.customer.id = :customerId")
+    BigDecimal sumTotalBillAmountByCustomerId(@Param("customerId") UUID customerId);
+
     // Specification executor handles dynamic filtering now
 }
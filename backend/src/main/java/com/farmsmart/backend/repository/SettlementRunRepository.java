@@ -0,0 +1,14 @@
+package com.farmsmart.backend.repository;
+
+import com.farmsmart.backend.entity.SettlementRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SettlementRunRepository extends JpaRepository<SettlementRun, UUID> {
+    Optional<SettlementRun> findByCycleStartAndCycleEnd(LocalDate cycleStart, LocalDate cycleEnd);
+
+    List<SettlementRun> findAllByOrderByCycleEndDesc();
+}
@@ -1,25 +1,31 @@
 package com.farmsmart.backend.service;
 
+import com.farmsmart.backend.ai.json.LlmJson;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.langchain4j.data.message.AiMessage;
+import com.fasterxml.jackson.databind.ObjectReader;
 import dev.langchain4j.data.message.ImageContent;
 import dev.langchain4j.data.message.TextContent;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.json.JsonArraySchema;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonStringSchema;
+import dev.langchain4j.model.chat.response.ChatResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.List;
 
 @Service
 public class BillVisionService {
 
     private final ChatLanguageModel visionModel;
-    private final ObjectMapper objectMapper;
+    private final ObjectReader billAnalysisReader;
     
     private static final String SYSTEM_PROMPT = """
             You are an expert ERP Data Clerk for a Poultry Farm.
@@ -36,7 +42,7 @@ public class BillVisionService {
             3. Extract items: Quantity, Product Name, Unit Price, and Total.
             4. Try to match the 'customer_name' to a 'customer_type' (FARMER, BUTCHER, or RETAIL).
 
-            Return ONLY a JSON object:
+            Return ONLY a JSON object (the response schema enforces its shape):
             {
               "suggested_type": "SALE | PURCHASE",
               "confidence_score": 0.0 to 1.0,
@@ -61,9 +67,39 @@ public class BillVisionService {
             }
             """;
 
-    public BillVisionService(@Qualifier("visionModel") ChatLanguageModel visionModel) {
+    // Mirrors BillAnalysisResponse, so the model returns bare JSON in exactly that shape
+    private static final ResponseFormat RESPONSE_FORMAT = LlmJson.responseFormat("BillAnalysis", JsonObjectSchema.builder()
+            .addEnumProperty("suggested_type", List.of("SALE", "PURCHASE"))
+            .addNumberProperty("confidence_score")
+            .addProperty("data", JsonObjectSchema.builder()
+                    .addStringProperty("date", "YYYY-MM-DD")
+                    .addStringProperty("customer_name")
+                    .addEnumProperty("customer_type_suggestion", List.of("FARMER", "BUTCHER", "RETAIL"))
+                    .addProperty("items", JsonArraySchema.builder()
+                            .items(JsonObjectSchema.builder()
+                                    .addStringProperty("product_name")
+                                    .addIntegerProperty("quantity")
+                                    .addEnumProperty("unit", List.of("KG", "BAG", "TRAY", "PIECE"))
+                                    .addNumberProperty("unit_price")
+                                    .addNumberProperty("line_total")
+                                    .required("product_name", "quantity")
+                                    .build())
+                            .build())
+                    .addNumberProperty("total_amount")
+                    .addNumberProperty("tax_amount")
+                    .addEnumProperty("payment_method_hint", List.of("CASH", "CHECK", "TRANSFER"))
+                    .required("items")
+                    .build())
+            .addProperty("review_required_fields", JsonArraySchema.builder()
+                    .items(JsonStringSchema.builder().build())
+                    .build())
+            .required("suggested_type", "confidence_score", "data")
+            .build());
+
+    public BillVisionService(@Qualifier("visionModel") ChatLanguageModel visionModel,
+                             @Qualifier("billAnalysisReader") ObjectReader billAnalysisReader) {
         this.visionModel = visionModel;
-        this.objectMapper = new ObjectMapper();
+        this.billAnalysisReader = billAnalysisReader;
     }
 
     public com.farmsmart.backend.dto.BillAnalysisResponse extractBillData(MultipartFile image) throws IOException {
@@ -75,14 +111,16 @@ public class BillVisionService {
                 ImageContent.from(base64, mimeType)
         );
 
-        Response<AiMessage> response = visionModel.generate(userMessage);
+        ChatResponse response = visionModel.chat(ChatRequest.builder()
+                .messages(userMessage)
+                .responseFormat(RESPONSE_FORMAT)
+                .build());
         
-        String responseText = response.content().text();
+        String responseText = response.aiMessage().text();
 
         if (responseText != null && !responseText.isEmpty()) {
             try {
-                String jsonStr = cleanJson(responseText);
-                return objectMapper.readValue(jsonStr, com.farmsmart.backend.dto.BillAnalysisResponse.class);
+                return LlmJson.read(billAnalysisReader, responseText);
             } catch (JsonProcessingException e) {
                 System.err.println("Failed to parse AI response: " + responseText);
                 throw new RuntimeException("Failed to parse bill data", e);
@@ -91,18 +129,4 @@ public class BillVisionService {
 
         throw new RuntimeException("Failed to get valid response from AI");
     }
-
-    private String cleanJson(String raw) {
-        // Remove markdown code blocks if present
-        String cleaned = raw.trim();
-        if (cleaned.startsWith("```json")) {
-            cleaned = cleaned.substring(7);
-        } else if (cleaned.startsWith("```")) {
-            cleaned = cleaned.substring(3);
-        }
-        if (cleaned.endsWith("```")) {
-            cleaned = cleaned.substring(0, cleaned.length() - 3);
-        }
-        return cleaned.trim();
-    }
 }
@@ -0,0 +1,110 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.auth.dto.AuthenticatedUser;
+import com.farmsmart.backend.auth.entity.Role;
+import com.farmsmart.backend.auth.service.UserService;
+import com.farmsmart.backend.dto.CashDrawerCloseRequest;
+import com.farmsmart.backend.dto.CashDrawerSummaryDTO;
+import com.farmsmart.backend.dto.PaymentMethodTotalDTO;
+import com.farmsmart.backend.entity.CashDrawerCloseout;
+import com.farmsmart.backend.repository.CashDrawerCloseoutRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cash-drawer close-out for a cashier's business day.
+ *
+ * Totals come from payment_daily_rollup, which a trigger on payment_transaction
+ * keeps per (day, user, method). A summary is therefore a primary-key range read
+ * of a handful of rows, no matter how many payments were taken that day.
+ */
+@Service
+public class CashDrawerService {
+
+    private static final String CASH = "CASH";
+
+    // Roles allowed to view or close another cashier's drawer, as held by AuthenticatedUser
+    private static final Set<Role.RoleName> SUPERVISOR_ROLES = Set.of(
+            Role.RoleName.ROLE_ADMIN, Role.RoleName.ROLE_OWNER, Role.RoleName.ROLE_MANAGER, Role.RoleName.ROLE_ACCOUNTANT);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private CashDrawerCloseoutRepository closeoutRepository;
+    @Autowired private UserService userService;
+
+    public CashDrawerSummaryDTO getSummary(LocalDate businessDate, UUID userId) {
+        LocalDate day = businessDate != null ? businessDate : LocalDate.now();
+        UUID cashierId = resolveCashier(userId);
+
+        List<PaymentMethodTotalDTO> methods = jdbcTemplate.query("""
+                SELECT payment_method, txn_count, total_amount
+                FROM payment_daily_rollup
+                WHERE payment_day = ? AND user_id = ?
+                ORDER BY payment_method
+                """,
+                (rs, rowNum) -> new PaymentMethodTotalDTO(
+                        rs.getString("payment_method"),
+                        rs.getLong("txn_count"),
+                        rs.getBigDecimal("total_amount")),
+                day, cashierId);
+
+        CashDrawerSummaryDTO summary = new CashDrawerSummaryDTO();
+        summary.setBusinessDate(day);
+        summary.setUserId(cashierId);
+        summary.setMethods(methods);
+        for (PaymentMethodTotalDTO method : methods) {
+            summary.setTransactionCount(summary.getTransactionCount() + method.getTransactionCount());
+            summary.setTotalCollected(summary.getTotalCollected().add(method.getTotalAmount()));
+            if (CASH.equalsIgnoreCase(method.getPaymentMethod())) {
+                summary.setExpectedCash(summary.getExpectedCash().add(method.getTotalAmount()));
+            }
+        }
+        summary.setCloseout(closeoutRepository.findByBusinessDateAndUserId(day, cashierId).orElse(null));
+        return summary;
+    }
+
+    /**
+     * Reconcile counted cash against the rollup. Closing the same drawer again
+     * (e.g. after a recount) updates the existing close-out.
+     */
+    @Transactional
+    public CashDrawerCloseout closeDrawer(CashDrawerCloseRequest request) {
+        CashDrawerSummaryDTO summary = getSummary(request.getBusinessDate(), request.getUserId());
+
+        CashDrawerCloseout closeout = summary.getCloseout() != null ? summary.getCloseout() : new CashDrawerCloseout();
+        closeout.setBusinessDate(summary.getBusinessDate());
+        closeout.setUserId(summary.getUserId());
+        closeout.setTotalCollected(summary.getTotalCollected());
+        closeout.setExpectedCash(summary.getExpectedCash());
+        closeout.setCountedCash(request.getCountedCash());
+        closeout.setVariance(request.getCountedCash().subtract(summary.getExpectedCash()));
+        closeout.setRemarks(request.getRemarks());
+        closeout.setClosedByUserId(userService.getCurrentUser().getId());
+        closeout.setClosedAt(LocalDateTime.now());
+        return closeoutRepository.save(closeout);
+    }
+
+    /**
+     * Cashiers only see their own drawer; supervisors may pick any user.
+     */
+    private UUID resolveCashier(UUID requestedUserId) {
+        AuthenticatedUser currentUser = userService.getCurrentUser();
+        if (requestedUserId == null || requestedUserId.equals(currentUser.getId())) {
+            return currentUser.getId();
+        }
+        boolean supervisor = SUPERVISOR_ROLES.stream().anyMatch(role -> currentUser.hasRole(role.name()));
+        if (!supervisor) {
+            throw new AccessDeniedException("Not allowed to access another user's cash drawer");
+        }
+        return requestedUserId;
+    }
+}
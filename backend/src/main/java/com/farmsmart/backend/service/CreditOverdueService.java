@@ -0,0 +1,97 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.event.CreditOverdueEvent;
+import com.farmsmart.backend.event.DataChangedEvent;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves credit ledger entries past their due date to OVERDUE.
+ *
+ * The transition is a single set-based UPDATE ... RETURNING, so the job cost
+ * does not depend on how many entries are open. Readers then filter on
+ * status = 'OVERDUE' (partial index) instead of recomputing due_date < CURRENT_DATE.
+ */
+@Service
+public class CreditOverdueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditOverdueService.class);
+
+    private static final String MARK_OVERDUE_SQL = """
+            UPDATE credit_ledger
+            SET status = 'OVERDUE'
+            WHERE status IN ('ACTIVE', 'PARTIAL')
+              AND due_date < CURRENT_DATE
+            RETURNING customer_id, current_balance
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CreditOverdueService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Catch up on startup in case the server was down when the daily job was due.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            markOverdueCredits();
+        } catch (Exception e) {
+            logger.error("Overdue credit catch-up failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.credit.overdue-cron:0 5 0 * * *}")
+    @Transactional
+    public int markOverdueCredits() {
+        Map<UUID, CustomerTotals> totals = new LinkedHashMap<>();
+
+        jdbcTemplate.query(MARK_OVERDUE_SQL, rs -> {
+            UUID customerId = rs.getObject("customer_id", UUID.class);
+            BigDecimal balance = rs.getBigDecimal("current_balance");
+            totals.computeIfAbsent(customerId, id -> new CustomerTotals()).add(balance);
+        });
+
+        int transitioned = 0;
+        for (Map.Entry<UUID, CustomerTotals> entry : totals.entrySet()) {
+            CustomerTotals t = entry.getValue();
+            eventPublisher.publishEvent(new CreditOverdueEvent(entry.getKey(), t.count, t.amount));
+            transitioned += t.count;
+        }
+
+        if (transitioned > 0) {
+            // Bulk JDBC update: Hibernate listeners never see it
+            eventPublisher.publishEvent(DataChangedEvent.of("credit_ledger"));
+            logger.info("Marked {} ledger entries OVERDUE for {} customers", transitioned, totals.size());
+        }
+        return transitioned;
+    }
+
+    private static class CustomerTotals {
+        private int count;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        private void add(BigDecimal balance) {
+            count++;
+            if (balance != null) {
+                amount = amount.add(balance);
+            }
+        }
+    }
+}
@@ -6,18 +6,26 @@ import org.springframework.stereotype.Service;
 
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class DashboardService {
 
     private final JdbcTemplate jdbcTemplate;
     private final FarmAssistantService farmAssistantService;
+    private final MaterializedMetricsService materializedMetrics;
 
-    public DashboardService(JdbcTemplate jdbcTemplate, FarmAssistantService farmAssistantService) {
+    // Last successful AI insights, served while the model is unavailable
+    private volatile List<String> lastInsights;
+
+    public DashboardService(JdbcTemplate jdbcTemplate, FarmAssistantService farmAssistantService,
+                            MaterializedMetricsService materializedMetrics) {
         this.jdbcTemplate = jdbcTemplate;
         this.farmAssistantService = farmAssistantService;
+        this.materializedMetrics = materializedMetrics;
     }
 
     public DashboardStatsDTO getDashboardStats() {
@@ -148,19 +156,43 @@ public class DashboardService {
         try {
             // We construct a prompt with key data for the AI to analyze
             String dataSummary = getBusinessSummaryForAI();
-            String response = farmAssistantService.chat(
+            String response = farmAssistantService.ask(
                 "Analyze this farm business data and provide 3 short, actionable bullet points (no asterisks just text) about health, risks, or opportunities: " + dataSummary
             );
             
             // Basic parsing assuming AI returns lines
-            return List.of(response.split("\n"));
+            List<String> insights = List.of(response.split("\n"));
+            lastInsights = insights;
+            return insights;
         } catch (Exception e) {
+            System.err.println("AI insights failed: " + e.getMessage());
+            List<String> cached = lastInsights;
+            if (cached != null) {
+                return cached;
+            }
             return List.of("AI Service currently unavailable. Please check system logs.");
         }
     }
 
     // New: Low Stock Alerts
     public List<Map<String, Object>> getLowStockAlerts() {
+        // Same stock levels the assistant answers from, while they are fresh
+        Optional<MaterializedMetricsService.Snapshot<List<MaterializedMetricsService.StockLevel>>> levels =
+                materializedMetrics.stockLevels();
+        if (levels.isPresent()) {
+            List<Map<String, Object>> alerts = new ArrayList<>();
+            for (MaterializedMetricsService.StockLevel level : levels.get().value()) {
+                if (level.currentStock() >= 10 || alerts.size() == 5) {
+                    break;
+                }
+                Map<String, Object> alert = new LinkedHashMap<>();
+                alert.put("name", level.name());
+                alert.put("current_stock", level.currentStock());
+                alert.put("unit", level.unit());
+                alerts.add(alert);
+            }
+            return alerts;
+        }
         String sql = """
             SELECT name, current_stock, unit 
             FROM product 
@@ -173,23 +205,16 @@ public class DashboardService {
 
     // New: Aging Credits
     public List<Map<String, Object>> getAgingCredits() {
-        // Checking credit_ledger for overdue
+        // OVERDUE is maintained by CreditOverdueService (partial index idx_credit_ledger_overdue)
         String sql = """
             SELECT c.id as customer_id, c.name, cl.current_balance, cl.due_date 
             FROM credit_ledger cl
             JOIN customer c ON cl.customer_id = c.id
-            WHERE cl.status = 'ACTIVE' AND cl.due_date < CURRENT_DATE
+            WHERE cl.status = 'OVERDUE'
             ORDER BY cl.due_date ASC 
             LIMIT 5
         """;
-        // If credit_ledger doesn't exist yet (might be a new table), we fallback or fail gracefully.
-        // Assuming it exists based on user prompt. If not, we might need to use customer balance.
-        try {
-             return jdbcTemplate.queryForList(sql);
-        } catch (Exception e) {
-             // Fallback if credit_ledger not present
-             return List.of();
-        }
+        return jdbcTemplate.queryForList(sql);
     }
 
     public List<Map<String, Object>> getRecentStockMovement() {
@@ -1,13 +1,30 @@
 package com.farmsmart.backend.service;
 
 import com.farmsmart.backend.ai.agent.FarmAssistantAgent;
+import com.farmsmart.backend.ai.agent.FarmAssistantStreamingAgent;
+import com.farmsmart.backend.ai.execution.AssistantExecutor;
+import com.farmsmart.backend.ai.memory.AssistantChatMemoryProvider;
+import com.farmsmart.backend.ai.observation.AssistantObservations;
+import com.farmsmart.backend.ai.resilience.ModelUnavailableException;
 import com.farmsmart.backend.ai.tools.DatabaseTool;
 import com.farmsmart.backend.ai.tools.KnowledgeTool;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import com.farmsmart.backend.auth.service.UserService;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.TokenStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
 /**
  * Service layer for the Farm Assistant AI.
  * 
@@ -15,31 +32,141 @@ import org.springframework.stereotype.Service;
  * - DatabaseTool uses IntentClassifier + QueryPlanner (no raw SQL from LLM)
  * - KnowledgeTool remains unchanged (RAG for knowledge base)
  * - ChatLanguageModel is injected from AIConfig
+ * - chatStreamAsync() runs the same agent on the streaming model for SSE clients
+ * - Conversation history is kept per user and conversation (AssistantChatMemoryProvider)
+ * - chatAsync() and chatStreamAsync() run on AssistantExecutor, bounded by app.ai.timeout.chat
+ * - Blocking turns are the root assistant.chat observation of their stage timings
  */
 @Service
 public class FarmAssistantService {
 
     private final FarmAssistantAgent agent;
+    private final FarmAssistantStreamingAgent streamingAgent;
+    private final FarmAssistantAgent oneShotAgent;
+    private final AssistantChatMemoryProvider chatMemoryProvider;
+    private final UserService userService;
+    private final AssistantExecutor assistantExecutor;
+    private final Duration chatTimeout;
+    private final AssistantObservations observations;
 
     public FarmAssistantService(
             ChatLanguageModel chatModel,
+            StreamingChatLanguageModel streamingChatModel,
+            AssistantChatMemoryProvider chatMemoryProvider,
+            UserService userService,
+            AssistantExecutor assistantExecutor,
             DatabaseTool databaseTool, 
-            KnowledgeTool knowledgeTool) {
+            KnowledgeTool knowledgeTool,
+            AssistantObservations observations,
+            @Value("${app.ai.timeout.chat:60s}") Duration chatTimeout) {
+        
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.userService = userService;
+        this.assistantExecutor = assistantExecutor;
+        this.chatTimeout = chatTimeout;
+        this.observations = observations;
         
-        // Build the AI agent with intent-based tools
+        // Build the AI agent with intent-based tools.
+        // Both agents resolve memory through the same provider, so a conversation
+        // can switch between the blocking and streaming endpoints.
         this.agent = AiServices.builder(FarmAssistantAgent.class)
                 .chatLanguageModel(chatModel)
-                .chatMemory(MessageWindowChatMemory.withMaxMessages(10))
+                .chatMemoryProvider(chatMemoryProvider)
+                .tools(databaseTool, knowledgeTool)
+                .build();
+        
+        this.streamingAgent = AiServices.builder(FarmAssistantStreamingAgent.class)
+                .streamingChatLanguageModel(streamingChatModel)
+                .chatMemoryProvider(chatMemoryProvider)
+                .tools(databaseTool, knowledgeTool)
+                .build();
+        
+        // No memory: for system prompts (dashboard insights) that must not leak into chats
+        this.oneShotAgent = AiServices.builder(FarmAssistantAgent.class)
+                .chatLanguageModel(chatModel)
                 .tools(databaseTool, knowledgeTool)
                 .build();
     }
 
-    public String chat(String userMessage) {
+    /**
+     * Memory id of the current user's conversation. Must be called on the request thread.
+     */
+    public String memoryIdFor(String conversationId) {
+        return AssistantChatMemoryProvider.memoryId(userService.findCurrentUserId().orElse(null), conversationId);
+    }
+
+    public String chat(String memoryId, String userMessage) {
         try {
-            return agent.chat(userMessage);
+            return chatOrThrow(memoryId, userMessage);
+        } catch (ModelUnavailableException e) {
+            System.err.println("⚠️ FarmAssistantService: " + e.getMessage());
+            return "The assistant is temporarily unavailable because the AI service is overloaded. Please try again shortly.";
         } catch (Throwable e) {
             e.printStackTrace();
             return "Error: " + e.getMessage();
         }
     }
+
+    /**
+     * chat() on a virtual thread inside the assistant bulkhead. Fails with
+     * RejectedExecutionException when the assistant is saturated and with
+     * TimeoutException after app.ai.timeout.chat.
+     */
+    public CompletableFuture<String> chatAsync(String memoryId, String userMessage) {
+        return assistantExecutor.submit("chat", () -> chat(memoryId, userMessage), chatTimeout);
+    }
+
+    /**
+     * chat() without the fallback replies: model and pipeline failures are thrown
+     */
+    public String chatOrThrow(String memoryId, String userMessage) {
+        return observations.chat(() -> agent.chat(memoryId, userMessage));
+    }
+
+    /**
+     * chatAsync() whose future also fails with the errors chat() turns into a
+     * reply, so load tests can tell them apart from answers
+     */
+    public CompletableFuture<String> chatOrThrowAsync(String memoryId, String userMessage) {
+        return assistantExecutor.submit("chat", () -> chatOrThrow(memoryId, userMessage), chatTimeout);
+    }
+
+    /**
+     * Streaming chat inside the same bulkhead and app.ai.timeout.chat as chatAsync().
+     * callbacks registers onNext/onToolExecuted on the stream; the turn holds its
+     * permit until the stream completes, and the future carries the final response
+     * or fails like chatAsync()'s (RejectedExecutionException, TimeoutException).
+     */
+    public CompletableFuture<Response<AiMessage>> chatStreamAsync(String memoryId, String userMessage,
+                                                                   Consumer<TokenStream> callbacks) {
+        return assistantExecutor.submit("chat", () -> {
+            CompletableFuture<Response<AiMessage>> done = new CompletableFuture<>();
+            TokenStream stream = streamingAgent.chat(memoryId, userMessage);
+            callbacks.accept(stream);
+            stream.onComplete(done::complete)
+                    .onError(done::completeExceptionally)
+                    .start();
+            try {
+                // Interruptible, so a timed-out turn gives its permit back
+                return done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Streaming chat interrupted");
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }, chatTimeout);
+    }
+
+    /**
+     * Single request without conversation history. Failures are thrown so the
+     * caller can fall back (e.g. to its last good answer).
+     */
+    public String ask(String prompt) {
+        return observations.chat(() -> oneShotAgent.chat("one-shot", prompt));
+    }
+
+    public void clearConversation(String memoryId) {
+        chatMemoryProvider.clear(memoryId);
+    }
 }
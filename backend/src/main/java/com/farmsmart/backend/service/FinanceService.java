@@ -1,5 +1,6 @@
 package com.farmsmart.backend.service;
 
+import com.farmsmart.backend.auth.service.UserService;
 import com.farmsmart.backend.dto.*;
 import com.farmsmart.backend.entity.*;
 import com.farmsmart.backend.exception.*;
@@ -23,6 +24,7 @@ public class FinanceService {
     @Autowired private PurchaseRepository purchaseRepository;
     @Autowired private CreditLedgerRepository creditLedgerRepository;
     @Autowired private PaymentTransactionRepository paymentTransactionRepository;
+    @Autowired private UserService userService;
 
     @Transactional
     public Sale createSale(SaleRequestDTO request) {
@@ -88,14 +90,15 @@ public class FinanceService {
 
         Sale savedSale = saleRepository.save(sale);
 
-        // Record Initial Transaction (if any)
+        // Record Initial Transaction (if any) - counted in the cashier's drawer rollup
         if (request.getInitialPaidAmount().compareTo(BigDecimal.ZERO) > 0) {
             PaymentTransaction txn = new PaymentTransaction();
             txn.setSale(savedSale);
             txn.setCustomer(customer);
             txn.setAmountPaid(request.getInitialPaidAmount());
             txn.setPaymentMethod(request.getPaymentMethod());
-            // txn repository not created yet, usually cascaded or separate
+            txn.setRecordedByUserId(userService.findCurrentUserId().orElse(null));
+            paymentTransactionRepository.save(txn);
         }
 
         // Create Ledger Entry if needed
@@ -150,26 +153,9 @@ public class FinanceService {
             creditLedgerRepository.save(ledger);
 
             // Update Customer Balance (Subtract cost from balance)
+            // A negative balance is money owed to the farmer. It is netted against
+            // their inputs and paid out by SettlementService at the end of the cycle.
             customer.setCurrentTotalBalance(customer.getCurrentTotalBalance().subtract(request.getTotalCost()));
-            
-            // Check for Profit Payout (Negative Balance)
-            if (customer.getCurrentTotalBalance().compareTo(BigDecimal.ZERO) < 0) {
-                 BigDecimal profitToPay = customer.getCurrentTotalBalance().abs();
-                 
-                 // Create Payment Transaction
-                 PaymentTransaction txn = new PaymentTransaction();
-                 txn.setCustomer(customer);
-                 txn.setAmountPaid(profitToPay);
-                 txn.setPaymentMethod("PROFIT_SETTLEMENT");
-                 // txn.setSale(null); // Optional now
-                 paymentTransactionRepository.save(txn);
-                 
-                 // Reset Balance to 0 (since we paid it out)
-                 customer.setCurrentTotalBalance(BigDecimal.ZERO);
-                 
-                 // Mark ledger as CLEARED? Or keep track? 
-                 // For simplicity, we just zero out the balance and assume paid. 
-            }
             customerRepository.save(customer);
 
         } else {
@@ -180,28 +166,12 @@ public class FinanceService {
     }
 
     public Map<String, Object> getFarmerProfit(java.util.UUID customerId) {
-        // Simple calculation: Total Delivery Value - Total Input Debt
-        // But actually, we already track net balance. 
         // Profit = Deliveries (Purchases) - Inputs (Sales)
-        // But inputs might be paid or unpaid.
-        
-        // Let's aggregate from history?
-        List<Purchase> deliveries = purchaseRepository.findAll().stream()
-                .filter(p -> p.getCustomer() != null && p.getCustomer().getId().equals(customerId))
-                .toList();
-                
-        List<Sale> inputs = saleRepository.findAll().stream()
-                .filter(s -> s.getCustomer().getId().equals(customerId))
-                .toList();
-                
-        BigDecimal deliveriesValue = deliveries.stream()
-                .map(Purchase::getTotalCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
-        BigDecimal inputsCost = inputs.stream()
-                .map(Sale::getTotalBillAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
+        // Both sides are summed in the database over the customer_id indexes
+        // instead of loading every purchase and sale into memory.
+        BigDecimal deliveriesValue = purchaseRepository.sumTotalCostByCustomerId(customerId);
+        BigDecimal inputsCost = saleRepository.sumTotalBillAmountByCustomerId(customerId);
+
         BigDecimal profit = deliveriesValue.subtract(inputsCost);
         
         return Map.of(
@@ -211,6 +181,22 @@ public class FinanceService {
         );
     }
 
+    /**
+     * Profit for every FARMER customer from one grouped query.
+     * Used by the contract-farming settlement run.
+     */
+    public List<FarmerProfitDTO> getAllFarmerProfits() {
+        return customerRepository.findFarmerProfitTotals().stream().map(row -> {
+            FarmerProfitDTO dto = new FarmerProfitDTO();
+            dto.setCustomerId(row.getCustomerId());
+            dto.setCustomerName(row.getCustomerName());
+            dto.setDeliveriesValue(row.getDeliveriesValue());
+            dto.setInputsCost(row.getInputsCost());
+            dto.setProfit(row.getDeliveriesValue().subtract(row.getInputsCost()));
+            return dto;
+        }).toList();
+    }
+
     public List<SaleHistoryDTO> getSalesHistory() {
         return saleRepository.findAll().stream().map(this::mapToSaleHistoryDTO).toList();
     }
@@ -0,0 +1,263 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.event.DataChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory aggregates shared by the dashboard and the assistant: credit
+ * summary, stock levels, the most recent sales and daily payment totals.
+ *
+ * Each view is loaded with one query and reloaded in the background when a
+ * committed write touches one of its tables (DataChangedEvent). Between the
+ * write and the reload the view is stale and not served, so callers fall back
+ * to their own SQL; they never read data older than the last commit. A
+ * scheduled reload covers writes that bypass the event.
+ */
+@Service
+public class MaterializedMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaterializedMetricsService.class);
+
+    /**
+     * A view's value and the time its query started; the data is at least that fresh
+     */
+    public record Snapshot<T>(T value, LocalDateTime asOf) {}
+
+    public record CreditSummary(long customersWithCredit, long activeCredits, BigDecimal outstanding,
+                                BigDecimal overdue, BigDecimal notYetDue) {}
+
+    public record StockLevel(String name, Integer currentStock, String unit, String category) {}
+
+    public record RecentSale(UUID id, String customerName, BigDecimal totalBillAmount, String paymentStatus,
+                             String saleChannel, LocalDateTime createdAt) {}
+
+    /**
+     * The newest sales, newest first; complete when there are no older ones
+     */
+    public record RecentSales(List<RecentSale> sales, boolean complete) {}
+
+    public record PaymentDay(LocalDate day, String method, long count, BigDecimal amount) {}
+
+    /**
+     * Payment totals per day and method from the first day on, through today
+     */
+    public record PaymentWindow(LocalDate from, List<PaymentDay> days) {}
+
+    // Published as one reference, so a reader never pairs a snapshot with another load's version
+    private record Loaded<T>(Snapshot<T> snapshot, long version) {}
+
+    private final class View<T> {
+        final String name;
+        final Set<String> tables;
+        final Supplier<T> loader;
+        final AtomicLong invalidations = new AtomicLong();
+        final AtomicBoolean refreshQueued = new AtomicBoolean();
+        volatile Loaded<T> loaded;
+
+        View(String name, Set<String> tables, Supplier<T> loader) {
+            this.name = name;
+            this.tables = tables;
+            this.loader = loader;
+        }
+
+        Optional<Snapshot<T>> current() {
+            Loaded<T> current = loaded;
+            if (current == null || current.version() != invalidations.get()) {
+                scheduleRefresh();
+                return Optional.empty();
+            }
+            return Optional.of(current.snapshot());
+        }
+
+        void scheduleRefresh() {
+            if (refreshQueued.compareAndSet(false, true)) {
+                refreshExecutor.execute(this::refresh);
+            }
+        }
+
+        void refresh() {
+            refreshQueued.set(false);
+            long version = invalidations.get();
+            LocalDateTime asOf = LocalDateTime.now();
+            try {
+                T value = meterRegistry.timer("materialized.refresh", "view", name).recordCallable(loader::get);
+                // A write committed while loading leaves this stale; its event queued another refresh
+                loaded = new Loaded<>(new Snapshot<>(value, asOf), version);
+            } catch (Exception e) {
+                logger.warn("Refreshing materialized view {} failed: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int recentSalesSize;
+    private final int paymentDays;
+    private final ExecutorService refreshExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("materialized-refresh").factory());
+
+    private final View<CreditSummary> creditSummary;
+    private final View<List<StockLevel>> stockLevels;
+    private final View<RecentSales> recentSales;
+    private final View<PaymentWindow> paymentWindow;
+    private final List<View<?>> views;
+
+    public MaterializedMetricsService(JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.materialized.recent-sales:100}") int recentSalesSize,
+                                      @Value("${app.materialized.payment-days:400}") int paymentDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.recentSalesSize = recentSalesSize;
+        this.paymentDays = paymentDays;
+        this.creditSummary = new View<>("credit-summary", Set.of("credit_ledger"), this::loadCreditSummary);
+        this.stockLevels = new View<>("stock-levels", Set.of("product"), this::loadStockLevels);
+        this.recentSales = new View<>("recent-sales", Set.of("sale", "customer"), this::loadRecentSales);
+        this.paymentWindow = new View<>("payment-days", Set.of("payment_daily_rollup", "payment_transaction"),
+                this::loadPaymentWindow);
+        this.views = List.of(creditSummary, stockLevels, recentSales, paymentWindow);
+    }
+
+    public Optional<Snapshot<CreditSummary>> creditSummary() {
+        return creditSummary.current();
+    }
+
+    /**
+     * Products with a known stock level, lowest first
+     */
+    public Optional<Snapshot<List<StockLevel>>> stockLevels() {
+        return stockLevels.current();
+    }
+
+    public Optional<Snapshot<RecentSales>> recentSales() {
+        return recentSales.current();
+    }
+
+    public Optional<Snapshot<PaymentWindow>> paymentWindow() {
+        return paymentWindow.current();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        views.forEach(View::scheduleRefresh);
+    }
+
+    /**
+     * Runs after the writing transaction commits (or immediately outside one)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        for (View<?> view : views) {
+            if (event.tables().stream().anyMatch(view.tables::contains)) {
+                view.invalidations.incrementAndGet();
+                view.scheduleRefresh();
+            }
+        }
+    }
+
+    /**
+     * Backstop for writes that publish no event; also moves the payment window
+     * forward. The old snapshots stay in service until the new ones are loaded.
+     */
+    @Scheduled(fixedDelayString = "${app.materialized.refresh-ms:300000}",
+            initialDelayString = "${app.materialized.refresh-ms:300000}")
+    public void refreshAll() {
+        views.forEach(View::scheduleRefresh);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CreditSummary loadCreditSummary() {
+        return jdbcTemplate.queryForObject("""
+                SELECT
+                    COUNT(DISTINCT cl.customer_id) as customers_with_credit,
+                    COUNT(cl.id) as total_active_credits,
+                    COALESCE(SUM(cl.current_balance), 0) as total_outstanding,
+                    COALESCE(SUM(CASE WHEN cl.status = 'OVERDUE' THEN cl.current_balance ELSE 0 END), 0) as overdue_amount,
+                    COALESCE(SUM(CASE WHEN cl.status <> 'OVERDUE' THEN cl.current_balance ELSE 0 END), 0) as not_yet_due
+                FROM credit_ledger cl
+                WHERE cl.status IN ('ACTIVE', 'PARTIAL', 'OVERDUE')
+                """, (rs, rowNum) -> new CreditSummary(
+                rs.getLong("customers_with_credit"),
+                rs.getLong("total_active_credits"),
+                rs.getBigDecimal("total_outstanding"),
+                rs.getBigDecimal("overdue_amount"),
+                rs.getBigDecimal("not_yet_due")));
+    }
+
+    private List<StockLevel> loadStockLevels() {
+        return List.copyOf(jdbcTemplate.query("""
+                SELECT name, current_stock, unit, category
+                FROM product
+                WHERE current_stock IS NOT NULL
+                ORDER BY current_stock ASC
+                """, (rs, rowNum) -> new StockLevel(
+                rs.getString("name"),
+                rs.getInt("current_stock"),
+                rs.getString("unit"),
+                rs.getString("category"))));
+    }
+
+    private RecentSales loadRecentSales() {
+        List<RecentSale> sales = jdbcTemplate.query("""
+                SELECT s.id, c.name as customer_name, s.total_bill_amount, s.payment_status,
+                       s.sale_channel, s.created_at
+                FROM sale s
+                JOIN customer c ON s.customer_id = c.id
+                ORDER BY s.created_at DESC
+                LIMIT ?
+                """, (rs, rowNum) -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return new RecentSale(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("customer_name"),
+                    rs.getBigDecimal("total_bill_amount"),
+                    rs.getString("payment_status"),
+                    rs.getString("sale_channel"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null);
+        }, recentSalesSize);
+        return new RecentSales(List.copyOf(sales), sales.size() < recentSalesSize);
+    }
+
+    private PaymentWindow loadPaymentWindow() {
+        LocalDate from = LocalDate.now().minusDays(paymentDays);
+        List<PaymentDay> days = jdbcTemplate.query("""
+                SELECT payment_day, payment_method, SUM(txn_count) as txn_count, SUM(total_amount) as total_amount
+                FROM payment_daily_rollup
+                WHERE payment_day >= ?
+                GROUP BY payment_day, payment_method
+                """, (rs, rowNum) -> new PaymentDay(
+                rs.getDate("payment_day").toLocalDate(),
+                rs.getString("payment_method"),
+                rs.getLong("txn_count"),
+                rs.getBigDecimal("total_amount")), from);
+        return new PaymentWindow(from, List.copyOf(days));
+    }
+}
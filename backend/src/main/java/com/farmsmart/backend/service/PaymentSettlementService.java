@@ -1,5 +1,6 @@
 package com.farmsmart.backend.service;
 
+import com.farmsmart.backend.auth.service.UserService;
 import com.farmsmart.backend.dto.SettlePaymentRequest;
 import com.farmsmart.backend.dto.SettlePaymentResponse;
 import com.farmsmart.backend.dto.UnpaidSaleDTO;
@@ -29,6 +30,7 @@ public class PaymentSettlementService {
     @Autowired private SaleRepository saleRepository;
     @Autowired private CreditLedgerRepository creditLedgerRepository;
     @Autowired private PaymentTransactionRepository paymentTransactionRepository;
+    @Autowired private UserService userService;
 
     @Transactional
     public SettlePaymentResponse settlePayment(SettlePaymentRequest request) {
@@ -54,6 +56,7 @@ public class PaymentSettlementService {
         txn.setAmountPaid(request.getAmount());
         txn.setPaymentMethod(request.getPaymentMethod());
         txn.setRemarks(request.getRemarks());
+        txn.setRecordedByUserId(userService.findCurrentUserId().orElse(null));
         
         // If saleId is provided, link it (but don't rely only on it for logic validation, we handle that below)
         Sale targetedSale = null;
@@ -106,21 +109,24 @@ public class PaymentSettlementService {
         // we can iterate through active ledgers and reduce their balance.
         // Note: This logic assumes ledger balance tracks sale balance. 
         List<CreditLedger> activeLedgers = creditLedgerRepository.findByCustomerIdAndStatusInOrderByDueDateAsc(
-                customer.getId(), List.of("ACTIVE", "PARTIAL", "CREDIT"));
+                customer.getId(), List.of("ACTIVE", "PARTIAL", "OVERDUE", "CREDIT"));
         
         BigDecimal ledgerPaymentPool = request.getAmount();
         
         for (CreditLedger ledger : activeLedgers) {
             if (ledgerPaymentPool.compareTo(BigDecimal.ZERO) <= 0) break;
 
+            // Farmer delivery credits (negative balances) are netted by SettlementService, not by payments
+            if (ledger.getCurrentBalance().compareTo(BigDecimal.ZERO) <= 0) continue;
+
             BigDecimal amountForLedger = ledgerPaymentPool.min(ledger.getCurrentBalance());
             
             ledger.setCurrentBalance(ledger.getCurrentBalance().subtract(amountForLedger));
             
             if (ledger.getCurrentBalance().compareTo(BigDecimal.ZERO) == 0) {
                 ledger.setStatus("CLEARED");
-            } else {
-                ledger.setStatus("PARTIAL");
+            } else if (!"OVERDUE".equals(ledger.getStatus())) {
+                ledger.setStatus("PARTIAL"); // A partial payment does not lift OVERDUE
             }
             creditLedgerRepository.save(ledger);
             ledgerPaymentPool = ledgerPaymentPool.subtract(amountForLedger);
@@ -0,0 +1,300 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.entity.CustomerReconciliation;
+import com.farmsmart.backend.entity.ReconciliationRun;
+import com.farmsmart.backend.repository.CustomerReconciliationRepository;
+import com.farmsmart.backend.repository.ReconciliationRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Reconciles the three copies of every customer's balance.
+ *
+ * Each run re-verifies only customers with a sale, purchase, payment or
+ * settlement since the previous run (plus newly registered customers). Their
+ * totals are recomputed with one grouped query, checksummed, and upserted into
+ * customer_reconciliation. The run keeps a rolling sum of all checksums; a full
+ * scan recomputes it from scratch, so an incremental run that missed a change
+ * shows up as a checksum mismatch.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    // Rows committed late with an earlier timestamp are still picked up
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(5);
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private static final String TOUCHED_CUSTOMERS_SQL = """
+            SELECT customer_id FROM sale WHERE created_at >= :since
+            UNION
+            SELECT customer_id FROM purchase WHERE purchase_date >= :since AND customer_id IS NOT NULL
+            UNION
+            SELECT customer_id FROM payment_transaction WHERE payment_date >= :since
+            UNION
+            SELECT customer_id FROM farmer_settlement WHERE created_at >= :since
+            UNION
+            SELECT id FROM customer WHERE registered_at >= :since
+            """;
+
+    private static final String TOTALS_SQL = """
+            SELECT c.id AS customer_id,
+                   COALESCE(c.current_total_balance, 0) AS customer_balance,
+                   COALESCE(s.total, 0) AS sales_remaining,
+                   COALESCE(l.open_total, 0) AS ledger_open_total,
+                   COALESCE(l.sale_open_total, 0) AS ledger_sale_open_total
+            FROM customer c
+            LEFT JOIN (
+                SELECT customer_id, SUM(remaining_balance) AS total
+                FROM sale
+                %1$s
+                GROUP BY customer_id
+            ) s ON s.customer_id = c.id
+            LEFT JOIN (
+                SELECT customer_id,
+                       SUM(current_balance) AS open_total,
+                       SUM(CASE WHEN sale_id IS NOT NULL THEN current_balance ELSE 0 END) AS sale_open_total
+                FROM credit_ledger
+                WHERE status <> 'CLEARED' %2$s
+                GROUP BY customer_id
+            ) l ON l.customer_id = c.id
+            %3$s
+            """;
+
+    private static final String FULL_TOTALS_SQL = TOTALS_SQL.formatted("", "", "");
+    private static final String CUSTOMER_TOTALS_SQL = TOTALS_SQL.formatted(
+            "WHERE customer_id IN (:ids)", "AND customer_id IN (:ids)", "WHERE c.id IN (:ids)");
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO customer_reconciliation (
+                customer_id, customer_balance, sales_remaining, ledger_open_total, ledger_sale_open_total,
+                balance_drift, sales_drift, drifted, checksum, verified_at, changed_at)
+            VALUES (:customerId, :customerBalance, :salesRemaining, :ledgerOpenTotal, :ledgerSaleOpenTotal,
+                    :balanceDrift, :salesDrift, :drifted, :checksum, :verifiedAt, :verifiedAt)
+            ON CONFLICT (customer_id) DO UPDATE SET
+                customer_balance = EXCLUDED.customer_balance,
+                sales_remaining = EXCLUDED.sales_remaining,
+                ledger_open_total = EXCLUDED.ledger_open_total,
+                ledger_sale_open_total = EXCLUDED.ledger_sale_open_total,
+                balance_drift = EXCLUDED.balance_drift,
+                sales_drift = EXCLUDED.sales_drift,
+                drifted = EXCLUDED.drifted,
+                checksum = EXCLUDED.checksum,
+                verified_at = EXCLUDED.verified_at,
+                changed_at = CASE WHEN customer_reconciliation.checksum = EXCLUDED.checksum
+                                  THEN customer_reconciliation.changed_at ELSE EXCLUDED.changed_at END
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CustomerReconciliationRepository reconciliationRepository;
+    private final ReconciliationRunRepository runRepository;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public ReconciliationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 CustomerReconciliationRepository reconciliationRepository,
+                                 ReconciliationRunRepository runRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reconciliationRepository = reconciliationRepository;
+        this.runRepository = runRepository;
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 */15 * * * *}")
+    public void scheduledRun() {
+        try {
+            runReconciliation(false);
+        } catch (IllegalStateException e) {
+            logger.info("Skipping scheduled reconciliation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Verify customers touched since the last run, or every customer when
+     * fullScan is set or no run has completed yet.
+     */
+    public ReconciliationRun runReconciliation(boolean fullScan) {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("A reconciliation run is already in progress");
+        }
+        try {
+            Optional<ReconciliationRun> previous = runRepository.findFirstByCompletedAtIsNotNullOrderByStartedAtDesc();
+            boolean full = fullScan || previous.isEmpty();
+
+            ReconciliationRun run = new ReconciliationRun();
+            run.setFullScan(full);
+            run.setStartedAt(LocalDateTime.now());
+
+            List<BalanceTotals> totals;
+            Map<UUID, Long> previousChecksums;
+            if (full) {
+                totals = jdbcTemplate.query(FULL_TOTALS_SQL, (rs, rowNum) -> mapTotals(rs));
+                previousChecksums = new HashMap<>();
+                jdbcTemplate.query("SELECT customer_id, checksum FROM customer_reconciliation",
+                        rs -> {
+                            previousChecksums.put(rs.getObject("customer_id", UUID.class), rs.getLong("checksum"));
+                        });
+            } else {
+                LocalDateTime since = previous.get().getStartedAt().minus(WATERMARK_OVERLAP);
+                List<UUID> touched = jdbcTemplate.queryForList(TOUCHED_CUSTOMERS_SQL,
+                        Map.of("since", Timestamp.valueOf(since)), UUID.class);
+                totals = loadTotals(touched);
+                previousChecksums = loadChecksums(touched);
+            }
+
+            LocalDateTime verifiedAt = LocalDateTime.now();
+            List<MapSqlParameterSource> batch = new ArrayList<>(totals.size());
+            long checksumDelta = 0;
+            long fullChecksum = 0;
+            int changed = 0;
+            int drifted = 0;
+
+            for (BalanceTotals t : totals) {
+                long checksum = t.checksum();
+                Long before = previousChecksums.get(t.customerId);
+                if (before == null || before != checksum) {
+                    changed++;
+                    checksumDelta += checksum - (before != null ? before : 0L);
+                }
+                fullChecksum += checksum;
+                if (t.isDrifted()) drifted++;
+                batch.add(t.toParams(checksum, verifiedAt));
+            }
+
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch.toArray(new MapSqlParameterSource[0]));
+            }
+
+            if (full) {
+                run.setLedgerChecksum(fullChecksum);
+                Long rolled = previous.map(ReconciliationRun::getLedgerChecksum).orElse(null);
+                if (rolled != null) {
+                    run.setChecksumMismatch(rolled != fullChecksum);
+                }
+            } else {
+                long rolled = previous.get().getLedgerChecksum() != null ? previous.get().getLedgerChecksum() : 0L;
+                run.setLedgerChecksum(rolled + checksumDelta);
+            }
+
+            // Drift count across all customers, not only the ones verified in this run
+            if (!full) {
+                drifted = (int) reconciliationRepository.countByDriftedTrue();
+            }
+
+            run.setCustomersChecked(totals.size());
+            run.setCustomersChanged(changed);
+            run.setDriftCount(drifted);
+            run.setCompletedAt(LocalDateTime.now());
+
+            if (Boolean.TRUE.equals(run.getChecksumMismatch())) {
+                logger.warn("Reconciliation checksum mismatch: incremental runs missed a balance change");
+            }
+            if (drifted > 0) {
+                logger.warn("Reconciliation found {} customers with balance drift", drifted);
+            }
+            return runRepository.save(run);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public List<CustomerReconciliation> getDriftedCustomers() {
+        return reconciliationRepository.findByDriftedTrueOrderByVerifiedAtDesc();
+    }
+
+    private List<BalanceTotals> loadTotals(List<UUID> customerIds) {
+        List<BalanceTotals> totals = new ArrayList<>(customerIds.size());
+        for (List<UUID> chunk : chunk(customerIds)) {
+            totals.addAll(jdbcTemplate.query(CUSTOMER_TOTALS_SQL, Map.of("ids", chunk), (rs, rowNum) -> mapTotals(rs)));
+        }
+        return totals;
+    }
+
+    private Map<UUID, Long> loadChecksums(List<UUID> customerIds) {
+        Map<UUID, Long> checksums = new HashMap<>();
+        for (List<UUID> chunk : chunk(customerIds)) {
+            jdbcTemplate.query("SELECT customer_id, checksum FROM customer_reconciliation WHERE customer_id IN (:ids)",
+                    Map.of("ids", chunk),
+                    rs -> {
+                        checksums.put(rs.getObject("customer_id", UUID.class), rs.getLong("checksum"));
+                    });
+        }
+        return checksums;
+    }
+
+    private static List<List<UUID>> chunk(List<UUID> ids) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static BalanceTotals mapTotals(java.sql.ResultSet rs) throws java.sql.SQLException {
+        return new BalanceTotals(
+                rs.getObject("customer_id", UUID.class),
+                rs.getBigDecimal("customer_balance"),
+                rs.getBigDecimal("sales_remaining"),
+                rs.getBigDecimal("ledger_open_total"),
+                rs.getBigDecimal("ledger_sale_open_total"));
+    }
+
+    private record BalanceTotals(
+            UUID customerId,
+            BigDecimal customerBalance,
+            BigDecimal salesRemaining,
+            BigDecimal ledgerOpenTotal,
+            BigDecimal ledgerSaleOpenTotal) {
+
+        BigDecimal balanceDrift() {
+            return customerBalance.subtract(ledgerOpenTotal);
+        }
+
+        BigDecimal salesDrift() {
+            return salesRemaining.subtract(ledgerSaleOpenTotal);
+        }
+
+        boolean isDrifted() {
+            return balanceDrift().signum() != 0 || salesDrift().signum() != 0;
+        }
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            crc.update((customerId + "|" + canonical(customerBalance) + "|" + canonical(salesRemaining)
+                    + "|" + canonical(ledgerOpenTotal) + "|" + canonical(ledgerSaleOpenTotal))
+                    .getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+
+        MapSqlParameterSource toParams(long checksum, LocalDateTime verifiedAt) {
+            return new MapSqlParameterSource()
+                    .addValue("customerId", customerId)
+                    .addValue("customerBalance", customerBalance)
+                    .addValue("salesRemaining", salesRemaining)
+                    .addValue("ledgerOpenTotal", ledgerOpenTotal)
+                    .addValue("ledgerSaleOpenTotal", ledgerSaleOpenTotal)
+                    .addValue("balanceDrift", balanceDrift())
+                    .addValue("salesDrift", salesDrift())
+                    .addValue("drifted", isDrifted())
+                    .addValue("checksum", checksum)
+                    .addValue("verifiedAt", Timestamp.valueOf(verifiedAt));
+        }
+
+        // 100.00 and 100 must checksum the same
+        private static String canonical(BigDecimal value) {
+            return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.dto.SettlementRunRequest;
+import com.farmsmart.backend.entity.*;
+import com.farmsmart.backend.repository.CreditLedgerRepository;
+import com.farmsmart.backend.repository.CustomerRepository;
+import com.farmsmart.backend.repository.PaymentTransactionRepository;
+import com.farmsmart.backend.repository.SaleRepository;
+import com.farmsmart.backend.repository.SettlementRunRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Contract-farming settlement cycle engine.
+ *
+ * Farmer deliveries are recorded as negative (CREDIT) ledger entries and inputs
+ * sold to the farmer as positive (ACTIVE/PARTIAL) entries. A run nets all open
+ * entries dated up to the cycle end - including debt carried forward and
+ * deliveries missed by earlier cycles (gaps, late entries) - once per farmer.
+ * Netted rows are CLEARED, so no delivery is paid twice:
+ * 1. Deliveries pay off input debt, oldest due date first
+ * 2. Any surplus is paid out with a single PROFIT_SETTLEMENT transaction
+ * 3. Netted ledger rows are CLEARED; unpaid debt stays open
+ *
+ * All entries are loaded in one query and written back in JDBC batches.
+ * Re-running the same cycle returns the stored run instead of settling twice.
+ */
+@Service
+public class SettlementService {
+
+    private static final List<String> OPEN_STATUSES = List.of("ACTIVE", "PARTIAL", "OVERDUE", "CREDIT");
+
+    @Autowired private SettlementRunRepository settlementRunRepository;
+    @Autowired private CreditLedgerRepository creditLedgerRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private SaleRepository saleRepository;
+    @Autowired private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Transactional
+    public SettlementRun runSettlement(SettlementRunRequest request) {
+        if (request.getCycleEnd().isBefore(request.getCycleStart())) {
+            throw new IllegalArgumentException("Cycle end must not be before cycle start");
+        }
+
+        Optional<SettlementRun> existing = settlementRunRepository
+                .findByCycleStartAndCycleEnd(request.getCycleStart(), request.getCycleEnd());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        SettlementRun run = new SettlementRun();
+        run.setCycleStart(request.getCycleStart());
+        run.setCycleEnd(request.getCycleEnd());
+        run.setStatus("IN_PROGRESS");
+        run = settlementRunRepository.save(run);
+
+        LocalDateTime cutoff = request.getCycleEnd().plusDays(1).atStartOfDay();
+        List<CreditLedger> openEntries = creditLedgerRepository.findOpenFarmerEntriesBefore(OPEN_STATUSES, cutoff);
+
+        // Group by farmer, keeping the due-date order from the query
+        Map<UUID, List<CreditLedger>> entriesByFarmer = new LinkedHashMap<>();
+        for (CreditLedger entry : openEntries) {
+            entriesByFarmer.computeIfAbsent(entry.getCustomer().getId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        List<CreditLedger> touchedLedgers = new ArrayList<>();
+        List<Sale> touchedSales = new ArrayList<>();
+        List<Customer> touchedCustomers = new ArrayList<>();
+        List<PaymentTransaction> payouts = new ArrayList<>();
+
+        for (List<CreditLedger> entries : entriesByFarmer.values()) {
+            FarmerSettlement settlement = settleFarmer(run, entries, touchedLedgers, touchedSales, payouts);
+            if (settlement == null) continue;
+
+            touchedCustomers.add(settlement.getCustomer());
+            run.getSettlements().add(settlement);
+            run.setFarmersSettled(run.getFarmersSettled() + 1);
+            run.setLedgerEntriesCleared(run.getLedgerEntriesCleared() + settlement.getLedgerEntriesCleared());
+            run.setTotalOffset(run.getTotalOffset().add(settlement.getOffsetAmount()));
+            run.setTotalPayout(run.getTotalPayout().add(settlement.getPayoutAmount()));
+        }
+
+        paymentTransactionRepository.saveAll(payouts);
+        creditLedgerRepository.saveAll(touchedLedgers);
+        saleRepository.saveAll(touchedSales);
+        customerRepository.saveAll(touchedCustomers);
+
+        run.setStatus("COMPLETED");
+        run.setCompletedAt(LocalDateTime.now());
+        return settlementRunRepository.save(run);
+    }
+
+    public List<SettlementRun> getSettlementRuns() {
+        return settlementRunRepository.findAllByOrderByCycleEndDesc();
+    }
+
+    /**
+     * Net one farmer's open entries. Returns null when the farmer has no
+     * deliveries to settle (pure debt is left for normal payment collection).
+     */
+    private FarmerSettlement settleFarmer(SettlementRun run, List<CreditLedger> entries,
+                                          List<CreditLedger> touchedLedgers, List<Sale> touchedSales,
+                                          List<PaymentTransaction> payouts) {
+        List<CreditLedger> credits = new ArrayList<>();
+        List<CreditLedger> debts = new ArrayList<>();
+        BigDecimal creditTotal = BigDecimal.ZERO;
+        BigDecimal debtTotal = BigDecimal.ZERO;
+
+        for (CreditLedger entry : entries) {
+            int sign = entry.getCurrentBalance().signum();
+            if (sign < 0) {
+                credits.add(entry);
+                creditTotal = creditTotal.add(entry.getCurrentBalance().negate());
+            } else if (sign > 0) {
+                debts.add(entry);
+                debtTotal = debtTotal.add(entry.getCurrentBalance());
+            }
+        }
+
+        if (creditTotal.compareTo(BigDecimal.ZERO) == 0) {
+            return null;
+        }
+
+        Customer customer = entries.get(0).getCustomer();
+        BigDecimal offset = creditTotal.min(debtTotal);
+        BigDecimal payout = creditTotal.subtract(offset);
+        int cleared = 0;
+
+        // 1. Deliveries pay off input debt, oldest first
+        BigDecimal remainingOffset = offset;
+        for (CreditLedger debt : debts) {
+            if (remainingOffset.compareTo(BigDecimal.ZERO) <= 0) break;
+
+            BigDecimal amount = remainingOffset.min(debt.getCurrentBalance());
+            debt.setCurrentBalance(debt.getCurrentBalance().subtract(amount));
+            if (debt.getCurrentBalance().compareTo(BigDecimal.ZERO) == 0) {
+                debt.setStatus("CLEARED");
+                cleared++;
+            } else if (!"OVERDUE".equals(debt.getStatus())) {
+                debt.setStatus("PARTIAL");
+            }
+            touchedLedgers.add(debt);
+
+            Sale sale = debt.getSale();
+            if (sale != null) {
+                sale.setRemainingBalance(sale.getRemainingBalance().subtract(amount));
+                sale.setPaymentStatus(sale.getRemainingBalance().compareTo(BigDecimal.ZERO) == 0 ? "FULLY_PAID" : "PARTIAL");
+                touchedSales.add(sale);
+            }
+            remainingOffset = remainingOffset.subtract(amount);
+        }
+
+        // 2. Every delivery credit is consumed, either by the offset or the payout
+        for (CreditLedger credit : credits) {
+            credit.setCurrentBalance(BigDecimal.ZERO);
+            credit.setStatus("CLEARED");
+            touchedLedgers.add(credit);
+            cleared++;
+        }
+
+        FarmerSettlement settlement = new FarmerSettlement();
+        settlement.setRun(run);
+        settlement.setCustomer(customer);
+        settlement.setDeliveriesValue(creditTotal);
+        settlement.setInputsCost(debtTotal);
+        settlement.setOffsetAmount(offset);
+        settlement.setPayoutAmount(payout);
+        settlement.setCarriedForwardDebt(debtTotal.subtract(offset));
+        settlement.setLedgerEntriesCleared(cleared);
+
+        // 3. Pay out the surplus
+        if (payout.compareTo(BigDecimal.ZERO) > 0) {
+            PaymentTransaction txn = new PaymentTransaction();
+            txn.setCustomer(customer);
+            txn.setAmountPaid(payout);
+            txn.setPaymentMethod("PROFIT_SETTLEMENT");
+            txn.setRemarks("Settlement cycle " + run.getCycleStart() + " to " + run.getCycleEnd());
+            payouts.add(txn);
+            settlement.setPayoutTransaction(txn);
+        }
+
+        // Balance = sum of open ledger entries: credits removed, debt reduced by the offset
+        customer.setCurrentTotalBalance(customer.getCurrentTotalBalance().add(payout));
+
+        return settlement;
+    }
+}
@@ -0,0 +1,88 @@
+package com.farmsmart.backend.ai.intent;
+
+import com.farmsmart.backend.ai.intent.TemporalExpressionParser.DateRange;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemporalExpressionParserTest {
+
+	// Kartik 3, 2083 BS
+	private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+	private static TemporalExpressionParser parser;
+
+	@BeforeAll
+	static void loadCalendar() throws Exception {
+		parser = new TemporalExpressionParser(new DefaultResourceLoader(), "classpath:ai/bikram-sambat.txt", "");
+	}
+
+	@Test
+	void convertsKnownBsDates() {
+		BikramSambatCalendar calendar = parser.getCalendar();
+		assertThat(calendar.toGregorian(2082, 6, 16)).isEqualTo(LocalDate.of(2025, 10, 2));
+		assertThat(calendar.fromGregorian(LocalDate.of(2025, 10, 2)))
+				.isEqualTo(new BikramSambatCalendar.BsDate(2082, 6, 16));
+		assertThat(calendar.toGregorian(2084, 1, 1)).isEqualTo(LocalDate.of(2027, 4, 14));
+		assertThat(calendar.lastDay()).isEqualTo(LocalDate.of(2028, 4, 12));
+	}
+
+	@Test
+	void readsUnmarkedYearsInTheTableAsBs() {
+		assertThat(parse("sales on 2082-06-16")).contains(range("2025-10-02", "2025-10-02"));
+		assertThat(parse("sales on 2084-01-01")).contains(range("2027-04-14", "2027-04-14"));
+		assertThat(parse("sales on 2025-10-02")).contains(range("2025-10-02", "2025-10-02"));
+	}
+
+	@Test
+	void doesNotReadYearsPastTheTableAsGregorian() {
+		assertThat(parse("sales on 2090-01-01")).isEmpty();
+	}
+
+	@Test
+	void resolvesFiscalYearBounds() {
+		assertThat(parse("payments this fiscal year")).contains(range("2026-07-17", "2026-10-19"));
+		assertThat(parse("payments last fiscal year")).contains(range("2025-07-16", "2026-07-16"));
+	}
+
+	@Test
+	void resolvesRelativeRanges() {
+		assertThat(parse("sales in the last 7 days")).contains(range("2026-10-13", "2026-10-19"));
+		assertThat(parse("total sales last week")).contains(range("2026-10-11", "2026-10-17"));
+		assertThat(parse("payments since last month")).contains(range("2026-09-01", "2026-10-19"));
+	}
+
+	@Test
+	void resolvesBsMonths() {
+		assertThat(parse("sales since Kartik")).contains(range("2026-10-17", "2026-10-19"));
+		assertThat(parse("sales in Asoj 2082")).contains(range("2025-09-17", "2025-10-16"));
+		// Chaitra asked in Kartik is last year's
+		assertThat(parse("sales in Chaitra")).contains(range("2026-03-15", "2026-04-13"));
+	}
+
+	@Test
+	void leavesSeveralExpressionsUnresolved() {
+		assertThat(parse("sales last week and payments this month")).isEmpty();
+		assertThat(parser.hasExpression("sales last week and payments this month")).isTrue();
+		assertThat(parse("sales from 2082-06-01 to 2082-06-16")).contains(range("2025-09-17", "2025-10-02"));
+	}
+
+	@Test
+	void doesNotResolveBsMonthsOutsideTheTable() {
+		assertThat(parser.parse("sales in Kartik", LocalDate.of(2030, 1, 1))).isEmpty();
+		assertThat(parser.parse("this fiscal year", LocalDate.of(2030, 1, 1))).isEmpty();
+	}
+
+	private static Optional<DateRange> parse(String query) {
+		return parser.parse(query, TODAY);
+	}
+
+	private static DateRange range(String from, String to) {
+		return new DateRange(LocalDate.parse(from), LocalDate.parse(to));
+	}
+}
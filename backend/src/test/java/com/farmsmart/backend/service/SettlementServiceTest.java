@@ -0,0 +1,185 @@
+package com.farmsmart.backend.service;
+
+import com.farmsmart.backend.dto.SettlementRunRequest;
+import com.farmsmart.backend.entity.CreditLedger;
+import com.farmsmart.backend.entity.Customer;
+import com.farmsmart.backend.entity.FarmerSettlement;
+import com.farmsmart.backend.entity.Sale;
+import com.farmsmart.backend.entity.SettlementRun;
+import com.farmsmart.backend.repository.CreditLedgerRepository;
+import com.farmsmart.backend.repository.CustomerRepository;
+import com.farmsmart.backend.repository.PaymentTransactionRepository;
+import com.farmsmart.backend.repository.SaleRepository;
+import com.farmsmart.backend.repository.SettlementRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementServiceTest {
+
+	private static final LocalDate CYCLE_START = LocalDate.of(2026, 10, 16);
+	private static final LocalDate CYCLE_END = LocalDate.of(2026, 10, 31);
+
+	@Mock private SettlementRunRepository settlementRunRepository;
+	@Mock private CreditLedgerRepository creditLedgerRepository;
+	@Mock private CustomerRepository customerRepository;
+	@Mock private SaleRepository saleRepository;
+	@Mock private PaymentTransactionRepository paymentTransactionRepository;
+
+	@InjectMocks
+	private SettlementService settlementService;
+
+	private Customer farmer;
+
+	@BeforeEach
+	void setUp() {
+		farmer = new Customer();
+		farmer.setId(UUID.randomUUID());
+		farmer.setName("Ram Bahadur");
+		farmer.setCustomerType("FARMER");
+
+		when(settlementRunRepository.findByCycleStartAndCycleEnd(CYCLE_START, CYCLE_END)).thenReturn(Optional.empty());
+		when(settlementRunRepository.save(any(SettlementRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void deliveriesPayOffDebtFirstAndSurplusIsPaidOut() {
+		Sale sale = sale("300");
+		CreditLedger debt = debt(sale, "300", LocalDate.of(2026, 10, 20));
+		CreditLedger delivery = delivery("500");
+		farmer.setCurrentTotalBalance(new BigDecimal("-200"));
+		openEntries(debt, delivery);
+
+		SettlementRun run = settle();
+
+		FarmerSettlement settlement = run.getSettlements().get(0);
+		assertAmount(settlement.getOffsetAmount(), "300");
+		assertAmount(settlement.getPayoutAmount(), "200");
+		assertAmount(settlement.getCarriedForwardDebt(), "0");
+		assertThat(settlement.getLedgerEntriesCleared()).isEqualTo(2);
+		assertThat(settlement.getPayoutTransaction().getPaymentMethod()).isEqualTo("PROFIT_SETTLEMENT");
+		assertAmount(settlement.getPayoutTransaction().getAmountPaid(), "200");
+
+		assertThat(debt.getStatus()).isEqualTo("CLEARED");
+		assertAmount(debt.getCurrentBalance(), "0");
+		assertThat(delivery.getStatus()).isEqualTo("CLEARED");
+		assertAmount(delivery.getCurrentBalance(), "0");
+		assertThat(sale.getPaymentStatus()).isEqualTo("FULLY_PAID");
+		assertAmount(sale.getRemainingBalance(), "0");
+		assertAmount(farmer.getCurrentTotalBalance(), "0");
+		assertAmount(run.getTotalPayout(), "200");
+		assertThat(run.getStatus()).isEqualTo("COMPLETED");
+	}
+
+	@Test
+	void unpaidDebtIsCarriedForwardOldestDueFirst() {
+		CreditLedger older = debt(sale("400"), "400", LocalDate.of(2026, 10, 18));
+		CreditLedger newer = debt(sale("400"), "400", LocalDate.of(2026, 11, 5));
+		CreditLedger delivery = delivery("500");
+		farmer.setCurrentTotalBalance(new BigDecimal("300"));
+		openEntries(older, newer, delivery);
+
+		SettlementRun run = settle();
+
+		FarmerSettlement settlement = run.getSettlements().get(0);
+		assertAmount(settlement.getOffsetAmount(), "500");
+		assertAmount(settlement.getPayoutAmount(), "0");
+		assertAmount(settlement.getCarriedForwardDebt(), "300");
+		assertThat(settlement.getPayoutTransaction()).isNull();
+
+		assertThat(older.getStatus()).isEqualTo("CLEARED");
+		assertThat(newer.getStatus()).isEqualTo("PARTIAL");
+		assertAmount(newer.getCurrentBalance(), "300");
+		assertAmount(newer.getSale().getRemainingBalance(), "300");
+		assertAmount(farmer.getCurrentTotalBalance(), "300");
+	}
+
+	@Test
+	void openDeliveryFromBeforeTheCycleIsStillSettled() {
+		// Delivered in a gap between runs, or entered after its cycle was settled
+		CreditLedger lateDelivery = delivery("250");
+		farmer.setCurrentTotalBalance(new BigDecimal("-250"));
+		openEntries(lateDelivery);
+
+		SettlementRun run = settle();
+
+		// Everything still open up to the cycle end is loaded, with no lower bound
+		verify(creditLedgerRepository).findOpenFarmerEntriesBefore(anyList(), eq(CYCLE_END.plusDays(1).atStartOfDay()));
+		assertAmount(run.getSettlements().get(0).getPayoutAmount(), "250");
+		assertThat(lateDelivery.getStatus()).isEqualTo("CLEARED");
+		assertAmount(farmer.getCurrentTotalBalance(), "0");
+	}
+
+	@Test
+	void farmerWithOnlyDebtIsNotSettled() {
+		CreditLedger debt = debt(sale("300"), "300", LocalDate.of(2026, 10, 20));
+		openEntries(debt);
+
+		SettlementRun run = settle();
+
+		assertThat(run.getSettlements()).isEmpty();
+		assertThat(debt.getStatus()).isEqualTo("ACTIVE");
+		assertAmount(debt.getCurrentBalance(), "300");
+	}
+
+	private SettlementRun settle() {
+		SettlementRunRequest request = new SettlementRunRequest();
+		request.setCycleStart(CYCLE_START);
+		request.setCycleEnd(CYCLE_END);
+		return settlementService.runSettlement(request);
+	}
+
+	private void openEntries(CreditLedger... entries) {
+		when(creditLedgerRepository.findOpenFarmerEntriesBefore(anyList(), any())).thenReturn(List.of(entries));
+	}
+
+	private Sale sale(String remaining) {
+		Sale sale = new Sale();
+		sale.setCustomer(farmer);
+		sale.setTotalBillAmount(new BigDecimal(remaining));
+		sale.setRemainingBalance(new BigDecimal(remaining));
+		sale.setPaymentStatus("CREDIT");
+		return sale;
+	}
+
+	private CreditLedger debt(Sale sale, String balance, LocalDate dueDate) {
+		CreditLedger debt = new CreditLedger();
+		debt.setCustomer(farmer);
+		debt.setSale(sale);
+		debt.setOriginalDebt(new BigDecimal(balance));
+		debt.setCurrentBalance(new BigDecimal(balance));
+		debt.setDueDate(dueDate);
+		debt.setStatus("ACTIVE");
+		return debt;
+	}
+
+	private CreditLedger delivery(String value) {
+		CreditLedger delivery = new CreditLedger();
+		delivery.setCustomer(farmer);
+		delivery.setOriginalDebt(new BigDecimal(value).negate());
+		delivery.setCurrentBalance(new BigDecimal(value).negate());
+		delivery.setStatus("CREDIT");
+		return delivery;
+	}
+
+	private static void assertAmount(BigDecimal actual, String expected) {
+		assertThat(actual).isEqualByComparingTo(expected);
+	}
+}